@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.scene.Group;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+// The whole animation graph of a scene: the complete tree with its nodes, the grass, the growing animation and the
+// seasons choreography with a step for every leaf, petal and blade, which run() otherwise builds in the background
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimatorBenchmark {
+
+  @Param({"6", "8", "10"})
+  public int depth;
+
+  @Param({"200"})
+  public int blades;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    Fx.start();
+  }
+
+  @Benchmark
+  public Animation buildCompleteScene() {
+    final TreeGenerator generator = new TreeGenerator(new Group(), depth, 42);
+    final Animator animator = new Animator(generator, new GrassGenerator(new Group(), blades, 43), 44);
+    animator.grown = new GenerationService(Runnable::run).generate(generator).join(); //on this thread
+    return animator.build();
+  }
+
+  @TearDown(Level.Invocation)
+  public void drainAttacher() throws InterruptedException {
+    Fx.awaitAttached();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.shape.QuadCurveTo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+// One operation moves every blade tip to the next wind phase
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BladeBenchmark {
+
+  @Param({"200", "5000"})
+  public int blades;
+
+  private GrassModel model;
+  private Blade[] nodes;
+  private QuadCurveTo[] tips;
+  private double phase;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    Fx.start();
+    model = new GrassModel(blades, new RandomUtil(42));
+    nodes = new Blade[blades];
+    tips = new QuadCurveTo[blades];
+    for (int i = 0; i < blades; i++) {
+      nodes[i] = new Blade(model, i);
+      tips[i] = (QuadCurveTo) nodes[i].getElements().get(1);
+    }
+  }
+
+  // closed form used by GrassCanvas
+  @Benchmark
+  public double closedFormTips() {
+    phase += 0.01;
+    double sum = 0;
+    for (int i = 0; i < model.size; i++) {
+      final double tipX = GrassModel.tipX(model.h[i], model.x[i], model.rand[i], phase);
+      sum += tipX + GrassModel.tipY(model.h[i], tipX);
+    }
+    return sum;
+  }
+
+  // binding chain of Blade nodes, evaluated the way rendering reads it
+  @Benchmark
+  public double bindingTips() {
+    phase += 0.01;
+    double sum = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i].phase.set(phase);
+      sum += tips[i].getX() + tips[i].getY() + tips[i].getControlY();
+    }
+    return sum;
+  }
+}
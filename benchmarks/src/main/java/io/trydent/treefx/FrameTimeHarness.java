@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.stage.Stage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+
+// Plays the whole Night scene headless for one year, growth to the end of autumn, and reports per phase
+// the pulse intervals, the FX work per pulse, the live node count and the heap in use.
+//
+//   java -Dharness.generations=8 -Dharness.blades=200 -Dharness.flowers=100 -cp target/benchmarks.jar io.trydent.treefx.FrameTimeHarness
+public class FrameTimeHarness {
+
+  private static final int GENERATIONS = Integer.getInteger("harness.generations", 8);
+  private static final int LOD_DEPTH = Integer.getInteger("harness.lod", TreeBuilder.NO_LOD);
+  private static final int BRANCHES = Integer.getInteger("harness.branches", 0);
+  private static final int BLADES = Integer.getInteger("harness.blades", 200);
+  private static final int FLOWERS = Integer.getInteger("harness.flowers", TreeGenerator.FLOWERS_NUMBER);
+  private static final GrassGenerator.Mode GRASS_MODE = GrassGenerator.Mode.valueOf(System.getProperty("harness.grass", "NODES"));
+  private static final long SEED = Long.getLong("harness.seed", 42);
+  private static final double RATE = Double.parseDouble(System.getProperty("harness.rate", "1"));
+  private static final double MAX_SECONDS = Double.parseDouble(System.getProperty("harness.maxSeconds", "600"));
+  private static final int NODE_SAMPLE_PULSES = 30;
+
+  private final Map<Animator.Phase, Samples> samples = new EnumMap<>(Animator.Phase.class);
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private NightScene scene;
+  private Animator animator;
+  private long pulse = -1;
+  private long lastPulse = -1;
+  private long start;
+  private int pulses;
+  private Animator.Phase previous = Animator.Phase.GROWTH;
+
+  public static void main(String[] args) throws InterruptedException {
+    Fx.start();
+    final FrameTimeHarness harness = new FrameTimeHarness();
+    Platform.runLater(harness::start);
+    harness.finished.await();
+    harness.report();
+    Platform.exit();
+    System.exit(0);
+  }
+
+  private void start() {
+    for (Animator.Phase phase : Animator.Phase.values()) {
+      samples.put(phase, new Samples());
+    }
+    scene = new NightScene();
+    final Stage stage = new Stage();
+    stage.setScene(scene);
+    stage.show();
+
+    new AnimationTimer() { // started first, so it runs ahead of every animation in a pulse
+      @Override
+      public void handle(long now) {
+        pulse = System.nanoTime();
+      }
+    }.start();
+
+    scene.branchBudget = BRANCHES;
+    animator = scene.animator(GENERATIONS, LOD_DEPTH, BLADES, FLOWERS, GRASS_MODE, SEED);
+    animator.rate = RATE;
+    start = System.nanoTime();
+    animator.run();
+    scene.addPostLayoutPulseListener(this::afterPulse);
+  }
+
+  // FX work of the pulse is animations plus CSS and layout, rendering follows on the render thread
+  private void afterPulse() {
+    final long now = System.nanoTime();
+    if (animator.animation == null || animator.animation.getStatus() == Animation.Status.STOPPED || pulse < 0) {
+      return;
+    }
+    final Animator.Phase phase = animator.phase();
+    if (phase.ordinal() < previous.ordinal() || (now - start) / 1e9 > MAX_SECONDS) {
+      finish(); // a year has passed, the seasons start over
+      return;
+    }
+    final boolean sample = phase != previous || pulses++ % NODE_SAMPLE_PULSES == 0;
+    previous = phase;
+    final Samples phaseSamples = samples.get(phase);
+    phaseSamples.work(now - pulse);
+    if (lastPulse >= 0) {
+      phaseSamples.interval(pulse - lastPulse);
+    }
+    lastPulse = pulse;
+    if (sample) {
+      phaseSamples.nodes = Math.max(phaseSamples.nodes, count(scene.getRoot()));
+      phaseSamples.heap = Math.max(phaseSamples.heap, memory.getHeapMemoryUsage().getUsed());
+    }
+  }
+
+  private void finish() {
+    if (finished.getCount() > 0) {
+      animator.animation.stop();
+      if (animator.seasons != null) {
+        animator.seasons.stop();
+      }
+      animator.particles.stop();
+      finished.countDown();
+    }
+  }
+
+  private static int count(Node node) {
+    int count = 1;
+    if (node instanceof Parent) {
+      for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+        count += count(child);
+      }
+    }
+    return count;
+  }
+
+  private void report() {
+    System.out.printf("generations=%d lod=%s branches=%s blades=%d flowers=%d grass=%s seed=%d rate=%.1f%n", GENERATIONS,
+      LOD_DEPTH == TreeBuilder.NO_LOD ? "off" : String.valueOf(LOD_DEPTH), BRANCHES == 0 ? "all" : String.valueOf(BRANCHES), BLADES, FLOWERS, GRASS_MODE, SEED, RATE);
+    System.out.printf("%-8s %7s %7s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+      "phase", "pulses", "fps", "int p50", "int p99", "work p50", "work p90", "work p99", "work max", "nodes", "heap MB");
+    for (Map.Entry<Animator.Phase, Samples> entry : samples.entrySet()) {
+      final Samples s = entry.getValue();
+      final double[] intervals = s.sorted(s.intervals, s.intervalCount);
+      final double[] work = s.sorted(s.work, s.workCount);
+      System.out.printf("%-8s %7d %7.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %9.1f%n",
+        entry.getKey(), s.workCount, intervals.length == 0 ? 0 : 1000 / mean(intervals),
+        percentile(intervals, 50), percentile(intervals, 99),
+        percentile(work, 50), percentile(work, 90), percentile(work, 99), percentile(work, 100),
+        s.nodes, s.heap / 1024. / 1024.);
+    }
+    System.out.println("times in ms, int = interval between pulses, work = FX thread time in the pulse");
+  }
+
+  private static double mean(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  private static double percentile(double[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    final int rank = (int) Math.ceil(p / 100 * sorted.length) - 1; // nearest rank
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+  }
+
+  private static class Samples {
+
+    double[] intervals = new double[1024];
+    double[] work = new double[1024];
+    int intervalCount;
+    int workCount;
+    int nodes;
+    long heap;
+
+    void interval(long nanos) {
+      if (intervalCount == intervals.length) {
+        intervals = Arrays.copyOf(intervals, intervalCount * 2);
+      }
+      intervals[intervalCount++] = nanos / 1e6;
+    }
+
+    void work(long nanos) {
+      if (workCount == work.length) {
+        work = Arrays.copyOf(work, workCount * 2);
+      }
+      work[workCount++] = nanos / 1e6;
+    }
+
+    double[] sorted(double[] values, int count) {
+      final double[] sorted = Arrays.copyOf(values, count);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
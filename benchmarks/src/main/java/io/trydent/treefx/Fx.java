@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CountDownLatch;
+
+
+// Starts the FX toolkit on the headless Monocle platform unless another one is asked for with -Dglass.platform
+final class Fx {
+
+  private Fx() {
+  }
+
+  static void start() throws InterruptedException {
+    if (System.getProperty("glass.platform") == null) {
+      System.setProperty("glass.platform", "Monocle");
+      System.setProperty("monocle.platform", "Headless");
+      System.setProperty("prism.order", "sw");
+    }
+    final CountDownLatch started = new CountDownLatch(1);
+    try {
+      Platform.startup(started::countDown);
+    } catch (IllegalStateException alreadyStarted) {
+      return;
+    }
+    started.await();
+  }
+
+  // waits until the batch attacher has put every queued node in place
+  static void awaitAttached() throws InterruptedException {
+    final CountDownLatch attached = new CountDownLatch(1);
+    Util.runWhenAttached(attached::countDown);
+    attached.await();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomUtilBenchmark {
+
+  private final RandomUtil random = new RandomUtil(42);
+
+  @Benchmark
+  public double random() {
+    return random.random();
+  }
+
+  @Benchmark
+  public double getRandom() {
+    return random.getRandom(10);
+  }
+
+  @Benchmark
+  public double getGaussianRandom() {
+    return random.getGaussianRandom(35, 10);
+  }
+
+  // the branch offset sampler of TreeGenerator
+  @Benchmark
+  public double getTruncatedGaussianRandom() {
+    return random.getGaussianRandom(0, 100, 10, 10);
+  }
+
+  @Benchmark
+  public double getTailGaussianRandom() {
+    return random.getGaussianRandom(3, 4, 0, 1);
+  }
+
+  @Benchmark
+  public int getRandomIndex() {
+    return random.getRandomIndex(0, 1000);
+  }
+
+  @Benchmark
+  public RandomUtil split() {
+    return random.split();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.scene.Group;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+
+// Heap still reachable after generation, divided by the branch count. Scene bytes include leaves and flowers, animated
+// bytes add the growing animation, the wind and the seasons of a scene without grass: TreeGenerator.BRANCH_BYTES.
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+public class RetainedSizeBenchmark {
+
+  private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+  private static final int MODEL_COPIES = 32; // a single model is too small against heap noise
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Retained {
+
+    public double modelBytesPerBranch;
+    public double sceneBytesPerBranch;
+    public double animatedBytesPerBranch;
+  }
+
+  @State(Scope.Benchmark)
+  public static class Depth {
+
+    @Param({"8", "10", "12"})
+    public int depth;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+      Fx.start();
+    }
+  }
+
+  @Benchmark
+  public void retained(Depth depth, Retained retained, Blackhole blackhole) throws InterruptedException {
+    final TreeGenerator generator = new TreeGenerator(new Group(), depth.depth, 42);
+
+    long before = usedHeap();
+    final TreeModel[] models = new TreeModel[MODEL_COPIES];
+    for (int i = 0; i < MODEL_COPIES; i++) {
+      models[i] = generator.generateModel();
+    }
+    final TreeModel model = models[0];
+    retained.modelBytesPerBranch = (usedHeap() - before) / (double) (model.size() * MODEL_COPIES);
+
+    before = usedHeap();
+    final Tree tree = generator.generateTree();
+    Fx.awaitAttached();
+    retained.sceneBytesPerBranch = (usedHeap() - before) / (double) model.size();
+
+    before = usedHeap();
+    final Animator animator = new Animator(new TreeGenerator(new Group(), depth.depth, 42), new GrassGenerator(new Group(), 0, 43), 44);
+    animator.grown = new GenerationService(Runnable::run).generate(animator.treeGenerator()).join();
+    final Animation animation = animator.build();
+    Fx.awaitAttached();
+    retained.animatedBytesPerBranch = (usedHeap() - before) / (double) model.size();
+
+    blackhole.consume(models);
+    blackhole.consume(tree);
+    blackhole.consume(animation);
+    blackhole.consume(animator);
+    blackhole.consume(generator.content);
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return MEMORY.getHeapMemoryUsage().getUsed();
+  }
+}
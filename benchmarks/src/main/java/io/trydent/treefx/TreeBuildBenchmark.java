@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.Group;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+// Model, nodes and their attachment to a detached content group, until the last node is in place. The attacher adds
+// at most its budget per pulse, so deep trees include the pulses they wait for.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBuildBenchmark {
+
+  @Param({"6", "8", "10", "12"})
+  public int depth;
+
+  @Param({"false", "true"})
+  public boolean parallel;
+
+  private TreeGenerator generator;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    Fx.start();
+    generator = new TreeGenerator(new Group(), depth, 42);
+    generator.pool = parallel ? ForkJoinPool.commonPool() : null;
+  }
+
+  @Benchmark
+  public Tree generateTree() throws InterruptedException {
+    generator.content = new Group();
+    final Tree tree = generator.generateTree();
+    Fx.awaitAttached();
+    return tree;
+  }
+}
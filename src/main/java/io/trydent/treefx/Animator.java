@@ -5,31 +5,24 @@
 package io.trydent.treefx;
 
 import javafx.animation.Animation;
-import javafx.animation.FadeTransition;
-import javafx.animation.FillTransition;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
+import javafx.animation.Interpolator;
 import javafx.animation.ParallelTransition;
 import javafx.animation.PauseTransition;
-import javafx.animation.ScaleTransition;
 import javafx.animation.SequentialTransition;
-import javafx.animation.Timeline;
 import javafx.animation.Transition;
-import javafx.animation.TranslateTransition;
-import javafx.beans.binding.DoubleBinding;
-import javafx.geometry.Point2D;
-import javafx.scene.Node;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.CacheHint;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Ellipse;
-import javafx.scene.transform.Rotate;
 import javafx.util.Duration;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import static java.lang.Math.random;
-import static java.lang.Math.sin;
 import static javafx.animation.Animation.INDEFINITE;
-import static io.trydent.treefx.Util.addChildToParent;
 
 
 public class Animator implements Runnable {
@@ -41,270 +34,556 @@ public class Animator implements Runnable {
   public static final Duration WIND_CYCLE_DURATION = Duration.seconds(5);
   public static final Duration LEAF_APPEARING_DURATION = Duration.seconds(2);
   public static final Duration FLOWER_APPEARING_DURATION = Duration.seconds(1);
+  public static final double SEEK_STEP = 1 / 60.; // seconds, seek moves the seasons a pulse at a time
+  public static final Rectangle2D PARTICLES_AREA = new Rectangle2D(-500, 0, 1000, 800); // whole Night scene in tree content coordinates
   private final TreeGenerator treeGenerator;
   private final GrassGenerator grassGenerator;
+  private final RandomUtil random;
+  final FallingParticles particles;
+  public double rate = 1; // speeds the whole scene up, the falling particles included
+  public boolean metrics = Boolean.parseBoolean(System.getProperty("treefx.metrics", "true")); // SceneMetrics over JMX
+  public boolean adaptive = Boolean.getBoolean("treefx.governor"); // QualityGovernor trades detail for frame time
+  public Executor executor; // generates the tree in the background, run() makes one when missing
+  // grown generations the wind turns by at most this many degrees are drawn from cached bitmaps, 0 for none
+  public double cacheAngle = Double.parseDouble(System.getProperty("treefx.cacheAngle", "0"));
+  public TreeGrowth grown; // a complete detached tree, see GenerationService, grows instead of generating one
+  GrassGenerator.Grass grownGrass; // grass generated off the scene, used instead of generating it
+  private ExecutorService ownExecutor;
+  private SceneMetrics sceneMetrics;
+  private boolean stopped;
+  QualityGovernor governor;
+  Animation animation; // wind and growth
+  Choreography seasons; // built once the tree is complete
+  private TreeGrowth growth;
+  private TreeWindAnimation treeWindAnimation;
+  private GrassWindAnimation grassWindAnimation;
+  private int blades;
+  private double flowerShare = 1; // flowers shown
+  private boolean fullPetals = true;
+  private GenerationGrowing[] generationGrowing;
+  private Color[][] grassRamps; // spring to autumn
+  private double[] grassDelays; // of autumn
+  private Choreography.ColorSink grassSink;
+  private int gate; // last generation the growing animation reached
+  private int built; // generations growing can use
+  private boolean stepping; // a generation is being built
+  private boolean stalled;
+  private double seekTime; // last seek
+  private final Duration[] seasonDurations = {Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO}; // by Phase
 
   Animator(TreeGenerator treeGenerator, GrassGenerator grassGenerator) {
+    this(treeGenerator, grassGenerator, RandomUtil.randomSeed());
+  }
+
+  Animator(TreeGenerator treeGenerator, GrassGenerator grassGenerator, long seed) {
     this.treeGenerator = treeGenerator;
     this.grassGenerator = grassGenerator;
+    this.random = new RandomUtil(seed);
+    this.particles = new FallingParticles(PARTICLES_AREA.getMinX(), PARTICLES_AREA.getMinY(), PARTICLES_AREA.getWidth(), PARTICLES_AREA.getHeight(),
+      Integer.getInteger("treefx.sprites", SpritePool.DEFAULT_CAPACITY));
   }
 
   @Override
   public void run() {
+    if (executor == null) {
+      executor = ownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "treefx-growth");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    final Animation all = build();
+    all.setRate(rate);
+    particles.rate = rate;
+    Util.runWhenAttached(() -> { // start once the first generation is in place
+      if (stopped) {
+        return;
+      }
+      if (metrics) {
+        sceneMetrics = new SceneMetrics(this, treeGenerator.content);
+        sceneMetrics.register();
+        sceneMetrics.start();
+      }
+      if (adaptive) {
+        governor = new QualityGovernor(this);
+        governor.start();
+      }
+      particles.start();
+      all.play();
+    });
+  }
 
-    Tree tree = treeGenerator.generateTree();
-    List<Blade> grass = grassGenerator.generateGrass();
+  // stops everything the scene plays, on the FX thread; the nodes stay where they are
+  public void stop() {
+    stopped = true;
+    if (animation != null) {
+      animation.stop();
+    }
+    if (seasons != null) {
+      seasons.stop();
+    }
+    particles.stop();
+    if (governor != null) {
+      governor.stop();
+    }
+    if (sceneMetrics != null) {
+      sceneMetrics.stop();
+    }
+    if (ownExecutor != null) {
+      ownExecutor.shutdown();
+    }
+  }
 
-    // branch growing animation
-    SequentialTransition branchGrowingAnimation = new SequentialTransition();
-    //Wind animation
-    ParallelTransition treeWindAnimation = new ParallelTransition();
+  // Offline rendering: the scene as it is seconds after growth began, set by the caller's clock instead of pulses. Every
+  // transition is put where playing would have it by then, so the scene must be built but not run. The tree must be
+  // complete (see grown) and attached, seconds only go forward. On the FX thread.
+  // The seasons catch up a pulse at a time, so every leaf and petal falls at its own time and from where the wind has
+  // its branch then, and the ones that have landed since are gone, however far seconds is from the last seek.
+  void seek(double seconds) {
+    for (double time = seekTime + SEEK_STEP; time < seconds; time += SEEK_STEP) {
+      treeWindAnimation.transforms.setWind(fraction(treeWindAnimation, time));
+      particles.advance(time);
+      seasonsAt(time);
+    }
+    seekTime = seconds;
+    treeWindAnimation.interpolate(fraction(treeWindAnimation, seconds));
+    grassWindAnimation.interpolate(fraction(grassWindAnimation, seconds));
+    double rest = seconds;
+    for (GenerationGrowing generation : generationGrowing) { //each one after its gate
+      rest -= Duration.ONE.toSeconds();
+      if (rest > 0) {
+        generation.interpolate(Math.min(rest / BRANCH_GROWING_DURATION.toSeconds(), 1));
+      }
+      rest -= BRANCH_GROWING_DURATION.toSeconds();
+    }
+    particles.advance(seconds); //falls starting now are stamped with this time
+    seasonsAt(seconds);
+    particles.update(seconds);
+  }
 
-    for (int i = 0; i < tree.generations.size(); i++) {
-      List<Branch> branchGeneration = tree.generations.get(i);
-      branchGrowingAnimation.getChildren().add(animateBranchGrowing(branchGeneration, i, BRANCH_GROWING_DURATION)); //create animation for current crown
-      treeWindAnimation.getChildren().add(animateTreeWind(branchGeneration, i, WIND_CYCLE_DURATION));
+  private void seasonsAt(double seconds) {
+    final double rest = seconds - generationGrowing.length * (Duration.ONE.toSeconds() + BRANCH_GROWING_DURATION.toSeconds())
+      - Duration.ONE.toSeconds(); //the seasons gate
+    if (rest >= 0) {
+      seasons.interpolate(fraction(seasons, rest));
     }
+  }
 
+  // the interpolated fraction a transition gets seconds after it started playing
+  private static double fraction(Transition transition, double seconds) {
+    final double cycles = seconds / transition.getCycleDuration().toSeconds();
+    final long cycle = (long) cycles;
+    final double frac = transition.isAutoReverse() && cycle % 2 == 1 ? 1 - (cycles - cycle) : cycles - cycle;
+    return transition.getInterpolator().interpolate(0., 1., frac);
+  }
 
-    // Main animation: grass bending, io.treefx.tree bending, io.treefx.tree growing, seasons changing
-    final Transition all = new ParallelTransition(new GrassWindAnimation(grass), treeWindAnimation, new SequentialTransition(branchGrowingAnimation, seasonsAnimation(tree, grass)));
-    all.play();
+  TreeGenerator treeGenerator() {
+    return treeGenerator;
+  }
 
+  GrassGenerator grassGenerator() {
+    return grassGenerator;
   }
 
-  //Animatation for  growing branches
-  private Animation animateBranchGrowing(List<Branch> branchGeneration, int depth, Duration duration) {
-    final ParallelTransition sameDepthBranchAnimation = new ParallelTransition();
+  // Generates the grass and the first tree generation and returns the animation growing the tree, without playing it.
+  // It may run on a worker, the scene starts changing only once its nodes are attached.
+  // Every generation is generated while the one before grows, the seasons follow once the tree is complete.
+  Animation build() {
+
+    if (grown != null) {
+      growth = grown;
+      Util.addChildToParent(treeGenerator.content, growth.tree); //all of it in one step
+    } else {
+      growth = treeGenerator.startTree();
+    }
+    final Tree tree = growth.tree;
+    Util.addChildToParent(treeGenerator.content, particles);
+    if (grownGrass != null) {
+      Util.addChildToParent(grassGenerator.content, grownGrass.group);
+    }
+    if (grassGenerator.mode == GrassGenerator.Mode.CANVAS) {
+      final GrassCanvas grass = grownGrass != null ? grownGrass.canvas : grassGenerator.generateCanvas();
+      grassWindAnimation = new GrassWindAnimation(grass);
+      blades = grass.model.size;
+      animateGrassColors(grass.model.springColor, grass.model.autumnColor, (i, color) -> grass.fill[i] = color);
+    } else {
+      final List<Blade> grass = grownGrass != null ? grownGrass.blades : grassGenerator.generateGrass();
+      grassWindAnimation = new GrassWindAnimation(grass);
+      blades = grass.size();
+      final Color[] springColor = new Color[grass.size()];
+      final Color[] autumnColor = new Color[grass.size()];
+      for (int i = 0; i < grass.size(); i++) {
+        springColor[i] = grass.get(i).SPRING_COLOR;
+        autumnColor[i] = grass.get(i).AUTUMN_COLOR;
+      }
+      animateGrassColors(springColor, autumnColor, (i, color) -> grass.get(i).setFill(color));
+    }
+
+    //Wind animation
+    treeWindAnimation = new TreeWindAnimation(WIND_CYCLE_DURATION);
+    treeWindAnimation.transforms = tree.transforms;
+
+    // branch growing animation, a generation waits at its gate until it is built
+    final SequentialTransition branchGrowingAnimation = new SequentialTransition();
+    generationGrowing = new GenerationGrowing[growth.generations()];
+    for (int i = 0; i < generationGrowing.length; i++) {
+      final int generation = i;
+      final PauseTransition gate = new PauseTransition(Duration.ONE);
+      gate.setOnFinished(event -> gate(generation));
+      generationGrowing[i] = new GenerationGrowing(BRANCH_GROWING_DURATION);
+      generationGrowing[i].setCached(TreeWindAnimation.amplitude(i) <= cacheAngle);
+      branchGrowingAnimation.getChildren().addAll(gate, generationGrowing[i]);
+    }
+    final PauseTransition seasonsGate = new PauseTransition(Duration.ONE);
+    seasonsGate.setOnFinished(event -> gate(generationGrowing.length));
+    branchGrowingAnimation.getChildren().add(seasonsGate);
+    gate = -1;
+    built = 0;
+    stepping = false;
+    final Choreography completeSeasons = growth.isComplete() ? seasonsAnimation(tree) : null;
+    Util.runWhenAttached(() -> generationsBuilt(completeSeasons)); //build may run on any thread, the nodes are FX's once attached
+
+    // Main animation: grass bending, io.treefx.tree bending, io.treefx.tree growing, then the seasons take over
+    return animation = new ParallelTransition(grassWindAnimation, treeWindAnimation, branchGrowingAnimation);
+  }
 
-    for (final Branch branch : branchGeneration) {
-      final KeyValue keyValue = new KeyValue(branch.base.endYProperty(), branch.length);
-      final KeyFrame keyFrame = new KeyFrame(duration, keyValue);
-      final Timeline branchGrowingAnimation = new Timeline(keyFrame);//line is growing by changinh endY from 0 to brunch.lengt
+  // the growing animation reached generation, the next one is generated meanwhile
+  private void gate(int generation) {
+    gate = generation;
+    requestGeneration();
+    if (generation < generationGrowing.length ? built <= generation : seasons == null) { //not there yet, wait
+      stalled = true;
+      animation.pause();
+    } else if (generation == generationGrowing.length) {
+      seasons.play();
+    }
+  }
 
-      final PauseTransition pauseTransition = new PauseTransition();
-      pauseTransition.setDuration(Duration.ONE);
-      pauseTransition.setOnFinished(event -> branch.base.setStrokeWidth(branch.length / 25));
+  private void requestGeneration() {
+    if (stepping || growth.isComplete() || built > gate + 1) {
+      return;
+    }
+    stepping = true;
+    final Executor executor = this.executor == null ? Runnable::run : this.executor;
+    executor.execute(() -> {
+      growth.next();
+      //the seasons of a complete tree are put together in the background as well
+      final Choreography seasons = growth.isComplete() ? seasonsAnimation(growth.tree) : null;
+      Util.runWhenAttached(() -> generationsBuilt(seasons));
+    });
+  }
 
-      sameDepthBranchAnimation.getChildren().add(
-        new SequentialTransition(
-          //To set width from 0 to some value we use pause transition with duration.one millisecond
-          //trick to show lines
-          pauseTransition,
-          branchGrowingAnimation
-        )
-      );
+  // on the FX thread once the nodes of a generation are attached
+  private void generationsBuilt(Choreography completeSeasons) {
+    if (stopped) {
+      return;
+    }
+    stepping = false;
+    final Tree tree = growth.tree;
+    for (int i = built; i < growth.built(); i++) {
+      generationGrowing[i].set(tree.generations.get(i), tree.paths.get(i));
+    }
+    built = growth.built();
+    growth.updateIndex(); //the worker waits for the next request meanwhile
+    treeWindAnimation.add(tree.generations, tree.mergedWind);
+    if (completeSeasons != null) {
+      seasons = completeSeasons;
+      seasons.setRate(rate);
+      showFlowers(flowerShare, fullPetals);
     }
+    if (stalled && (gate < generationGrowing.length ? built > gate : seasons != null)) {
+      stalled = false;
+      animation.play();
+      if (gate == generationGrowing.length) {
+        seasons.play();
+      }
+    }
+    requestGeneration();
+  }
 
-    return sameDepthBranchAnimation;
+  // quality knobs, on the FX thread
 
+  int blades() {
+    return blades;
   }
 
-  // animate wind. Tree is bending
-  private Animation animateTreeWind(List<Branch> branchGeneration, int depth, Duration duration) {
-    ParallelTransition wind = new ParallelTransition();
-    for (final Branch brunch : branchGeneration) {
-      final Rotate rotation = new Rotate(0);
-      brunch.getTransforms().add(rotation);
+  void setActiveBlades(int blades) {
+    grassWindAnimation.setActive(blades);
+  }
 
-      Timeline timeline = new Timeline();
-      KeyValue keyValue = new KeyValue(rotation.angleProperty(), depth * 2);
+  // the wind moves grass and tree every stride pulses
+  void setWindStride(int stride) {
+    grassWindAnimation.stride = stride;
+    treeWindAnimation.stride = stride;
+  }
 
-      timeline.getKeyFrames().add(new KeyFrame(duration, keyValue));
-      timeline.setAutoReverse(true);
-      timeline.setCycleCount(INDEFINITE);
+  // the first share of the flowers blooms, the others stay hidden
+  void showFlowers(double share, boolean fullPetals) {
+    flowerShare = share;
+    this.fullPetals = fullPetals;
+    if (seasons == null) {
+      return; //applied once the tree is complete
+    }
+    final List<Flower> flowers = growth.tree.flowers;
+    final int shown = (int) Math.round(share * flowers.size());
+    for (int i = 0; i < flowers.size(); i++) {
+      flowers.get(i).setVisible(i < shown);
+      flowers.get(i).setFullPetals(fullPetals);
+    }
+  }
 
-      wind.getChildren().add(timeline);
+  // generations that bend by at most angle are cached once grown, the others are drawn as they are again
+  void setCacheAngle(double angle) {
+    cacheAngle = angle;
+    for (int i = 0; i < generationGrowing.length; i++) {
+      generationGrowing[i].setCached(TreeWindAnimation.amplitude(i) <= angle);
     }
-    return wind;
   }
 
-  private Transition seasonsAnimation(final Tree tree, final List<Blade> grass) {
+  // generations built from now on merge branches deeper than depth
+  void limitLodDepth(int depth) {
+    growth.limitLodDepth(depth);
+  }
 
-    Transition spring = animateSpring(tree.leafage, grass);
-    Transition flowers = animateFlowers(tree.flowers);
-    Transition autumn = animateAutumn(tree.leafage, grass);
+  // spring, flowers and autumn as one flat choreography, every leaf, petal and blade a step of it
+  private Choreography seasonsAnimation(final Tree tree) {
+    final Choreography seasons = new Choreography();
+    final double spring = animateSpring(seasons, tree.leafage);
+    final double flowers = animateFlowers(seasons, tree.flowers, spring);
+    final double autumn = animateAutumn(seasons, tree.leafage, flowers);
 
-    SequentialTransition sequentialTransition = new SequentialTransition();
-    sequentialTransition.getChildren().addAll(spring, flowers, autumn);
-    sequentialTransition.setCycleCount(INDEFINITE);
+    seasonDurations[Phase.SPRING.ordinal()] = Duration.seconds(spring);
+    seasonDurations[Phase.FLOWERS.ordinal()] = Duration.seconds(flowers - spring);
+    seasonDurations[Phase.AUTUMN.ordinal()] = Duration.seconds(autumn - flowers);
+    seasons.setCycleCount(INDEFINITE);
 
-    return sequentialTransition;
+    return seasons;
   }
 
-  private Transition animateSpring(List<Leaf> leafage, List<Blade> grass) {
-    ParallelTransition springAnimation = new ParallelTransition();
-    for (final Blade blade : grass) {
-      //grass become green
+  // which part of the scene plays now, seasons repeat once the tree has grown
+  Phase phase() {
+    final Choreography seasons = this.seasons;
+    if (seasons == null || seasons.getStatus() == Animation.Status.STOPPED) {
+      return Phase.GROWTH;
+    }
+    double year = 0;
+    for (int i = Phase.SPRING.ordinal(); i < seasonDurations.length; i++) {
+      year += seasonDurations[i].toMillis();
+    }
+    double rest = year > 0 ? seasons.getCurrentTime().toMillis() % year : 0;
+    for (int i = Phase.SPRING.ordinal(); i < seasonDurations.length; i++) {
+      rest -= seasonDurations[i].toMillis();
+      if (rest < 0) {
+        return Phase.values()[i];
+      }
+    }
+    return Phase.AUTUMN;
+  }
 
-      final FillTransition fillTransition = new FillTransition();
-      fillTransition.setShape(blade);
-      fillTransition.setToValue(blade.SPRING_COLOR);
-      fillTransition.setDuration(GRASS_BECOME_GREEN_DURATION);
+  // Growth happens once, then spring, flowers and autumn cycle
+  enum Phase {
+    GROWTH, SPRING, FLOWERS, AUTUMN
+  }
 
-      springAnimation.getChildren().add(fillTransition);
+  private void animateGrassColors(Color[] springColor, Color[] autumnColor, Choreography.ColorSink grass) {
+    grassRamps = new Color[springColor.length][];
+    grassDelays = new double[springColor.length];
+    for (int i = 0; i < grassRamps.length; i++) {
+      grassRamps[i] = Choreography.ramp(springColor[i], autumnColor[i]);
+      grassDelays[i] = 1 * random.random();
     }
-    for (Leaf leaf : leafage) {
-      //leafage appear
-      final ScaleTransition scaleTransition = new ScaleTransition();
-      scaleTransition.setToX(1);
-      scaleTransition.setToY(1);
-      scaleTransition.setNode(leaf);
-      scaleTransition.setDuration(LEAF_APPEARING_DURATION);
+    grassSink = grass;
+  }
 
-      springAnimation.getChildren().add(scaleTransition);
+  // returns the end of spring
+  private double animateSpring(Choreography seasons, List<Leaf> leafage) {
+    //grass become green
+    seasons.addColors(grassRamps, true, new double[grassRamps.length], 0, GRASS_BECOME_GREEN_DURATION, grassSink);
+    //leafage appear
+    final Choreography.Track appear = (i, frac) -> {
+      final double scale = Interpolator.EASE_BOTH.interpolate(0., 1., frac);
+      leafage.get(i).setScaleX(scale);
+      leafage.get(i).setScaleY(scale);
+    };
+    for (int i = 0; i < leafage.size(); i++) {
+      seasons.add(appear, i, 0, LEAF_APPEARING_DURATION.toSeconds());
     }
-    return springAnimation;
+    return Math.max(GRASS_BECOME_GREEN_DURATION.toSeconds(), LEAF_APPEARING_DURATION.toSeconds());
   }
 
-  private Transition animateFlowers(List<Flower> flowers) {
-
-    ParallelTransition flowersAppearAndFallDown = new ParallelTransition();
-
+  // returns the end of the flowers
+  private double animateFlowers(Choreography seasons, List<Flower> flowers, double start) {
+    int petalsCount = 0;
+    for (Flower flower : flowers) {
+      petalsCount += flower.getPetals().size();
+    }
+    final Ellipse[] petals = new Ellipse[petalsCount];
+    final int[] branches = new int[petalsCount];
+    final double[] localX = new double[petalsCount];
+    final double[] localY = new double[petalsCount];
+    final double[] fallTo = new double[petalsCount];
+    //flowers appearing
+    final Choreography.Track appear = (i, frac) -> petals[i].setOpacity(Interpolator.EASE_BOTH.interpolate(0., 1., frac));
+    //fall down
+    final Choreography.Track fall = new FallDown(petals, branches, localX, localY, null, fallTo, i -> petals[i].setOpacity(0));
+
+    int p = 0;
+    double end = start;
     for (int i = 0; i < flowers.size(); i++) {
       final Flower flower = flowers.get(i);
-      for (Ellipse pental : flower.getPetals()) {
-
-        final FadeTransition fadeTransition = new FadeTransition();
-        fadeTransition.setDelay(FLOWER_APPEARING_DURATION.divide(3).multiply(i + 1));
-        fadeTransition.setDuration(FLOWER_APPEARING_DURATION);
-        fadeTransition.setNode(pental);
-        fadeTransition.setToValue(1);
-
-        final SequentialTransition sequentialTransition = new SequentialTransition(
-          //flowers appearing
-          fadeTransition,
-          //fall down
-          fakeFallDownAnimation(pental)
-        );
-
-        flowersAppearAndFallDown.getChildren().add(sequentialTransition);
+      final int branch = growth.model.flowerBranch(i);
+      for (int k = 0; k < flower.getPetals().size(); k++) {
+        petals[p] = flower.getPetals().get(k);
+        branches[p] = branch;
+        localX[p] = flower.petalX(k);
+        localY[p] = flower.petalY(k) + growth.model.length(branch) / 2; //flowers sit halfway along their branch
+        final double appearing = start + FLOWER_APPEARING_DURATION.divide(3).multiply(i + 1).toSeconds();
+        seasons.add(appear, p, appearing, FLOWER_APPEARING_DURATION.toSeconds());
+        end = Math.max(end, fallDown(seasons, fall, p, appearing + FLOWER_APPEARING_DURATION.toSeconds(), fallTo));
+        p++;
       }
     }
-    return flowersAppearAndFallDown;
+    return end;
   }
 
-  private Transition animateAutumn(List<Leaf> leafage, List<Blade> grass) {
-    ParallelTransition autumn = new ParallelTransition();
-
-    //Leafage animation
-    ParallelTransition yellowLeafage = new ParallelTransition();
-    ParallelTransition dissappearLeafage = new ParallelTransition();
-
-    for (final Leaf leaf : leafage) {
-
-      //become yellow
-      final FillTransition toYellow = new FillTransition();
-      toYellow.setShape(leaf);
-      toYellow.setToValue(leaf.AUTUMN_COLOR);
-      toYellow.setDuration(LEAF_APPEARING_DURATION);
-
-      yellowLeafage.getChildren().add(toYellow);
-
-      //fall down
-      Animation fakeLeafageDown = fakeFallDownEllipseAnimation(leaf, leaf.AUTUMN_COLOR, node -> {
-        node.setScaleX(0);
-        node.setScaleY(0);
-      });
-
-      final FillTransition fillTransition = new FillTransition();
-      fillTransition.setShape(leaf);
-      fillTransition.setToValue((Color) leaf.getFill());
-      fillTransition.setDuration(Duration.ONE);
-
-      //disappear
-      final SequentialTransition sequentialTransition = new SequentialTransition(fakeLeafageDown, fillTransition);
-
-      dissappearLeafage.getChildren().add(sequentialTransition);
+  // returns the end of autumn
+  private double animateAutumn(Choreography seasons, List<Leaf> leafage, double start) {
+    final Leaf[] leaves = leafage.toArray(new Leaf[0]);
+    final Color[][] ramps = new Color[leaves.length][];
+    final Color[] fakeColors = new Color[leaves.length];
+    final int[] branches = new int[leaves.length];
+    final double[] fallTo = new double[leaves.length];
+    for (int i = 0; i < leaves.length; i++) {
+      branches[i] = growth.model.crown(i); //a leaf starts where its branch does
+      ramps[i] = Choreography.ramp((Color) leaves[i].getFill(), leaves[i].AUTUMN_COLOR);
+      fakeColors[i] = leaves[i].AUTUMN_COLOR;
     }
-
-    //Grass animation
-    ParallelTransition grassBecomeYellowAnimation = new ParallelTransition();
-    for (final Blade blade : grass) {
-      //become yellow
-      final FillTransition toYellow = new FillTransition();
-      toYellow.setShape(blade);
-      toYellow.setToValue(blade.AUTUMN_COLOR);
-      toYellow.setDelay(Duration.seconds(1 * random()));
-      toYellow.setDuration(GRASS_BECOME_YELLOW_DURATION);
-
-      grassBecomeYellowAnimation.getChildren().add(toYellow);
+    //grass and leafage become yellow
+    seasons.addColors(grassRamps, false, grassDelays, start, GRASS_BECOME_YELLOW_DURATION, grassSink);
+    seasons.addColors(ramps, false, new double[ramps.length], start, LEAF_APPEARING_DURATION, (i, color) -> leaves[i].setFill(color));
+
+    //fall down, then get the spring colour back
+    final Choreography.Track fall = new FallDown(leaves, branches, new double[leaves.length], new double[leaves.length], fakeColors, fallTo, i -> {
+      leaves[i].setScaleX(0);
+      leaves[i].setScaleY(0);
+      leaves[i].setFill(ramps[i][0]);
+    });
+    double end = Math.max(seasons.getCycleDuration().toSeconds(), start + LEAF_APPEARING_DURATION.toSeconds());
+    for (int i = 0; i < leaves.length; i++) {
+      end = Math.max(end, fallDown(seasons, fall, i, start + LEAF_APPEARING_DURATION.toSeconds(), fallTo));
     }
+    seasons.extend(end); //the yellow leafage waits even without leaves
+    return end;
+  }
 
-    autumn.getChildren().addAll(grassBecomeYellowAnimation, new SequentialTransition(yellowLeafage, dissappearLeafage));
-    return autumn;
+  // element falls some time after start, returns when it has faded out
+  private double fallDown(Choreography seasons, Choreography.Track fall, int element, double start, double[] fallTo) {
+    final double time = start + Duration.minutes(0.9 * random.random() + 0.1).add(Duration.ONE).toSeconds();
+    fallTo[element] = random.random() * 30 + 1;
+    seasons.add(fall, element, time, 0);
+    return time + FallingParticles.LIFETIME;
   }
 
-  private Animation fakeFallDownAnimation(final Ellipse pentalOld) {
-    return fakeFallDownEllipseAnimation(pentalOld, null, node -> node.setOpacity(0));
+  private interface HideMethod {
+    void hide(int element);
   }
 
-  private Animation fakeFallDownEllipseAnimation(final Ellipse sourceEllipse, Color fakeColor, final HideMethod hideMethod) {
+  // replaces an ellipse with a falling particle, if too many are falling already the ellipse just disappears
+  private class FallDown implements Choreography.Track {
+
+    private final Ellipse[] sources;
+    private final int[] branches; // the sources sit on
+    private final double[] localX; // in the frame of their branch
+    private final double[] localY;
+    private final Color[] fakeColors; // null falls in the colour of the source
+    private final double[] toY;
+    private final HideMethod hideMethod;
+
+    FallDown(Ellipse[] sources, int[] branches, double[] localX, double[] localY, Color[] fakeColors, double[] toY, HideMethod hideMethod) {
+      this.sources = sources;
+      this.branches = branches;
+      this.localX = localX;
+      this.localY = localY;
+      this.fakeColors = fakeColors;
+      this.toY = toY;
+      this.hideMethod = hideMethod;
+    }
 
-    final Ellipse fake = copyEllipse(sourceEllipse, fakeColor);
-    addChildToParent(treeGenerator.content, fake);
+    @Override
+    public void update(int element, double frac) {
+      final Ellipse source = sources[element];
+      if (source.isVisible() && source.getParent().isVisible()) { //petals and flowers the governor hides don't fall
+        final TreeTransforms transforms = growth.tree.transforms; //tree coordinates are the ones of its content
+        particles.spawn(transforms.pointX(branches[element], localX[element], localY[element]),
+          transforms.pointY(branches[element], localX[element], localY[element]), toY[element], source.getRadiusX(), source.getRadiusY(),
+          fakeColors == null ? source.getFill() : fakeColors[element], random.random() * 180);
+      }
+      hideMethod.hide(element);
+    }
+  }
 
-    final PauseTransition replaceFakeWithSource = new PauseTransition();
-    replaceFakeWithSource.setDuration(Duration.ONE);
-    replaceFakeWithSource.setDelay(Duration.minutes(0.9 * random() + 0.1));
-    replaceFakeWithSource.setOnFinished(event -> {
-      final Point2D position = treeGenerator.content.sceneToLocal(sourceEllipse.localToScene(0, 0));
+  // Grows a generation of branches and merged paths in one loop, the branches arrive once they are built.
+  // A cached generation keeps its lines as bitmaps once grown: the wind only turns them, so the bitmaps are turned
+  // along instead of drawing the lines again every pulse.
+  private static class GenerationGrowing extends Transition {
 
-      DoubleBinding sinPath = new DoubleBinding() {
+    private List<Branch> branches = Collections.emptyList();
+    private List<BranchPath> paths = Collections.emptyList();
+    private boolean shown;
+    private boolean grown;
+    private boolean cached;
 
-        {
-          bind(fake.translateYProperty());
-        }
+    GenerationGrowing(Duration duration) {
+      setCycleDuration(duration);
+      setInterpolator(Interpolator.LINEAR);
+    }
 
-        @Override
-        protected double computeValue() {
-          return 50 * sin((fake.translateYProperty().doubleValue() - position.getY()) / 20);
-        }
-      };
-      fake.setTranslateY(position.getY());
-      fake.setCenterX(0);
-      fake.setCenterY(0);
-      fake.translateXProperty().bind(sinPath.add(position.getX()));
-      fake.rotateProperty().bind(fake.translateYProperty().multiply(2).add(random() * 180));
-      //replace source with fake
-      fake.setOpacity(1);
-      hideMethod.hide(sourceEllipse);
-    });
+    void set(List<Branch> branches, List<BranchPath> paths) {
+      this.branches = branches;
+      this.paths = paths;
+    }
 
-    final TranslateTransition translateTransition = new TranslateTransition();
-    translateTransition.setDuration(Duration.seconds(30));
-    translateTransition.setToY(random() * 30 + 1);
-    translateTransition.setNode(fake);
-
-    final FadeTransition fadeTransition = new FadeTransition();
-    fadeTransition.setToValue(0);
-    fadeTransition.setDelay(Duration.seconds(5));
-    fadeTransition.setDuration(Duration.seconds(2));
-    fadeTransition.setNode(fake);
-
-    return new SequentialTransition(replaceFakeWithSource,
-      //fall down
-      translateTransition,
-      //disappear
-      fadeTransition
-    );
-  }
+    void setCached(boolean cached) {
+      this.cached = cached;
+      if (grown) {
+        cache(cached);
+      }
+    }
 
-  private Ellipse copyEllipse(Ellipse petalOld, Color color) {
-    Ellipse ellipse = new Ellipse();
-    ellipse.setRadiusX(petalOld.getRadiusX());
-    ellipse.setRadiusY(petalOld.getRadiusY());
-    if (color == null) {
-      ellipse.setFill(petalOld.getFill());
-    } else {
-      ellipse.setFill(color);
+    private void cache(boolean cache) {
+      for (Branch branch : branches) {
+        branch.base.setCache(cache);
+        branch.base.setCacheHint(CacheHint.ROTATE);
+      }
+      for (BranchPath path : paths) {
+        path.setCache(cache);
+        path.setCacheHint(CacheHint.ROTATE);
+      }
     }
-    ellipse.setRotate(petalOld.getRotate());
-    ellipse.setOpacity(0);
-    return ellipse;
-  }
 
-  private interface HideMethod {
-    void hide(Node node);
+    @Override
+    protected void interpolate(double frac) {
+      if (!shown) { //stroke width is 0 until the branch starts growing, trick to show lines
+        shown = true;
+        for (Branch branch : branches) {
+          branch.base.setStrokeWidth(branch.length / 25);
+        }
+        for (BranchPath path : paths) {
+          path.setStrokeWidth(path.grownStrokeWidth());
+        }
+      }
+      for (Branch branch : branches) {
+        branch.base.setEndY(branch.length * frac); //line is growing by changing endY from 0 to branch length
+      }
+      for (BranchPath path : paths) {
+        path.grow(frac);
+      }
+      if (frac >= 1 && !grown) { //the lines won't change any more
+        grown = true;
+        if (cached) {
+          cache(true);
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// One pulse of BatchAttacher work
+@Name("io.trydent.treefx.Attach")
+@Label("Batch Attach")
+@Category("TreeFX")
+@StackTrace(false)
+class AttachEvent extends Event {
+
+  @Label("Nodes")
+  int nodes;
+
+  @Label("Parents")
+  int parents;
+
+  @Label("Callbacks")
+  int callbacks;
+
+  @Label("Budget")
+  int budget;
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved. DO NOT
+ * ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+// Collects children from any thread and adds them to their parents on the FX thread, at most budget per pulse.
+// Counts the nodes it puts into a scene and the ones it takes out, so the scene size is known without walking it.
+public class BatchAttacher {
+
+  public static final int DEFAULT_BUDGET = 2000;
+
+  public volatile int budget;
+  private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final List<Node> batch = new ArrayList<>();
+  private long attachedNodes; // FX thread, less the nodes cleared
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      drain();
+    }
+  };
+
+  public BatchAttacher(int budget) {
+    this.budget = budget;
+  }
+
+  public void add(Group parent, Node child) {
+    queue.add(new Entry(parent, child, null));
+    schedule();
+  }
+
+  // callback runs on the FX thread once everything added before this call is attached
+  public void whenAttached(Runnable callback) {
+    queue.add(new Entry(null, null, callback));
+    schedule();
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      Platform.runLater(timer::start);
+    }
+  }
+
+  private void drain() {
+    final AttachEvent event = new AttachEvent();
+    event.begin();
+    Group parent = null;
+    int attached = 0;
+    int parents = 0;
+    int callbacks = 0;
+    Entry entry;
+    while (attached < budget && (entry = queue.poll()) != null) {
+      if (entry.parent != parent || entry.callback != null) { //children of the same parent are added at once
+        parents += flush(parent);
+        parent = entry.parent;
+      }
+      if (entry.callback != null) {
+        entry.callback.run();
+        callbacks++;
+      } else {
+        batch.add(entry.child);
+        attached++;
+      }
+    }
+    parents += flush(parent);
+    if (event.shouldCommit()) {
+      event.nodes = attached;
+      event.parents = parents;
+      event.callbacks = callbacks;
+      event.budget = budget;
+      event.commit();
+    }
+
+    if (queue.isEmpty()) {
+      timer.stop();
+      scheduled.set(false);
+      if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) { //added while stopping
+        timer.start();
+      }
+    }
+  }
+
+  // nodes added to a scene so far with the nodes they held, less the ones cleared, on the FX thread
+  public long attachedNodes() {
+    return attachedNodes;
+  }
+
+  // removes every child of parent, on the FX thread; children still queued for it come later
+  public void clear(Group parent) {
+    if (parent.getScene() != null) {
+      for (Node child : parent.getChildren()) {
+        attachedNodes -= count(child);
+      }
+    }
+    parent.getChildren().clear();
+  }
+
+  // 1 when a batch was added
+  private int flush(Group parent) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    if (parent.getScene() != null) {
+      for (Node child : batch) {
+        attachedNodes += count(child);
+      }
+    }
+    parent.getChildren().addAll(batch);
+    batch.clear();
+    return 1;
+  }
+
+  // a node and all nodes below it, most children come on their own after their parent
+  static int count(Node node) {
+    int count = 1;
+    if (node instanceof Parent) {
+      for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+        count += count(child);
+      }
+    }
+    return count;
+  }
+
+  private static class Entry {
+
+    final Group parent;
+    final Node child;
+    final Runnable callback;
+
+    Entry(Group parent, Node child, Runnable callback) {
+      this.parent = parent;
+      this.child = child;
+      this.callback = callback;
+    }
+  }
+}
@@ -13,28 +13,29 @@ import javafx.scene.shape.Path;
 import javafx.scene.shape.QuadCurveTo;
 import javafx.scene.transform.Transform;
 
-import static java.lang.Math.PI;
-import static java.lang.Math.cos;
-import static java.lang.Math.random;
-
 
 public class Blade extends Path {
 
-  private final static double width = 3;
-  public final Color SPRING_COLOR = Color.color(random() * 0.5, random() * 0.5 + 0.5, 0.).darker();
-  public final Color AUTUMN_COLOR = Color.color(random() * 0.4 + 0.3, random() * 0.1 + 0.4, random() * 0.2);
+  public final Color SPRING_COLOR;
+  public final Color AUTUMN_COLOR;
   public SimpleDoubleProperty phase = new SimpleDoubleProperty(); //phase of blade movement
-  private final double x = RandomUtil.getRandom(170); // width of grass ground
-  private final double y = RandomUtil.getRandom(20) + 20; // height of grass ground
-  private final double h = (50 * 1.5 - y / 2) * RandomUtil.getRandom(0.3);   // height of blade
-
-  public Blade() {
+  private final double x; // width of grass ground
+  private final double y; // height of grass ground
+  private final double h; // height of blade
+
+  public Blade(GrassModel model, int index) {
+    SPRING_COLOR = model.springColor[index];
+    AUTUMN_COLOR = model.autumnColor[index];
+    x = model.x[index];
+    y = model.y[index];
+    h = model.h[index];
+    final double rand = model.rand[index]; // to separate blade movement
 
     getElements().add(new MoveTo(0, 0));
     final QuadCurveTo curve1;
     final QuadCurveTo curve2;
     getElements().add(curve1 = new QuadCurveTo(-10, h, h / 4, h));
-    getElements().add(curve2 = new QuadCurveTo(-10, h, width, 0));
+    getElements().add(curve2 = new QuadCurveTo(-10, h, GrassModel.BLADE_WIDTH, 0));
 
     setFill(AUTUMN_COLOR); //autumn color of blade
     setStroke(null);
@@ -50,8 +51,7 @@ public class Blade extends Path {
       @Override
       protected double computeValue() {
 
-        final double xx0 = curve1.xProperty().get();
-        return Math.sqrt(h * h - xx0 * xx0);
+        return GrassModel.tipY(h, curve1.xProperty().get());
       }
     }); //path of top of blade is circle
 
@@ -61,16 +61,13 @@ public class Blade extends Path {
 
     curve1.xProperty().bind(new DoubleBinding() {
 
-      final double rand = RandomUtil.getRandom(PI / 4); // to separate blade movement
-
       {
         super.bind(phase);
       }
 
       @Override
       protected double computeValue() {
-        //calculating shift x for top of blade
-        return (h / 4) + ((cos(phase.get() + (x + 400.) * PI / 1600 + rand) + 1) / 2.) * (-3. / 4) * h;
+        return GrassModel.tipX(h, x, rand, phase.get());
       }
     });
   }
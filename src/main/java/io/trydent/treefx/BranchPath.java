@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+
+import java.util.Arrays;
+
+
+// Branches of one generation of a merged subtree, drawn as one Path in the coordinates of the subtree root branch
+public class BranchPath extends Path {
+
+  private double[] startX = new double[8];
+  private double[] startY = new double[8];
+  private double[] endX = new double[8];
+  private double[] endY = new double[8];
+  private LineTo[] lines = new LineTo[8];
+  private int size;
+  private double lengthSum;
+
+  public BranchPath(int depth) {
+    setStroke(Color.color(0.4, 0.1, 0.1, 1));
+    if (depth < 5) { //line rendering optimization
+      setStrokeLineJoin(StrokeLineJoin.ROUND);
+      setStrokeLineCap(StrokeLineCap.ROUND);
+    }
+    setStrokeWidth(0); //trick to hide lines
+  }
+
+  // adds a branch not grown yet: it starts as a point
+  public void add(double x0, double y0, double x1, double y1, double length) {
+    if (size == lines.length) {
+      final int capacity = size * 2;
+      startX = Arrays.copyOf(startX, capacity);
+      startY = Arrays.copyOf(startY, capacity);
+      endX = Arrays.copyOf(endX, capacity);
+      endY = Arrays.copyOf(endY, capacity);
+      lines = Arrays.copyOf(lines, capacity);
+    }
+    startX[size] = x0;
+    startY[size] = y0;
+    endX[size] = x1;
+    endY[size] = y1;
+    lines[size] = new LineTo(x0, y0);
+    getElements().addAll(new MoveTo(x0, y0), lines[size]);
+    lengthSum += length;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // same width a Branch of the mean length gets
+  public double grownStrokeWidth() {
+    return size == 0 ? 0 : lengthSum / size / 25;
+  }
+
+  // moves every branch end from its start (0) to its full length (1)
+  public void grow(double frac) {
+    for (int i = 0; i < size; i++) {
+      lines[i].setX(startX[i] + (endX[i] - startX[i]) * frac);
+      lines[i].setY(startY[i] + (endY[i] - startY[i]) * frac);
+    }
+  }
+}
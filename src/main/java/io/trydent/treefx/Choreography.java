@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Interpolator;
+import javafx.animation.Transition;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+
+// A whole choreography as one flat list of steps, played by one clock. A step moves one element of a track from its
+// start time for its duration; each pulse starts the steps whose time has come, in start order, and updates the running
+// ones only, so the cost of a pulse follows the work under way rather than the size of the scene. A step is a row of
+// a few arrays, not a Transition of its own.
+class Choreography extends Transition {
+
+  // colours of a ramp, enough that a 5 s change shows no steps; every one is a Color kept for each leaf and blade
+  public static final int RAMP_STEPS = Math.max(2, Integer.getInteger("treefx.rampSteps", 64));
+
+  private Track[] track = new Track[64];
+  private int[] element = new int[64];
+  private double[] start = new double[64]; // seconds
+  private double[] duration = new double[64];
+  private int size;
+  private double totalSeconds;
+
+  private int[] order; // steps by start time, sorted when playing starts
+  private int next; // first step in order not started yet
+  private int[] running = new int[64];
+  private int runningCount;
+  private double time = -1;
+
+  public Choreography() {
+    setInterpolator(Interpolator.LINEAR);
+    setCycleDuration(Duration.ONE);
+  }
+
+  public static Color[] ramp(Color from, Color to) {
+    final Color[] ramp = new Color[RAMP_STEPS];
+    for (int i = 0; i < RAMP_STEPS; i++) {
+      ramp[i] = from.interpolate(to, i / (RAMP_STEPS - 1.));
+    }
+    return ramp;
+  }
+
+  // element of track runs from start for duration, a step without duration gets frac 1 once
+  public void add(Track track, int element, double startSeconds, double durationSeconds) {
+    if (size == this.track.length) {
+      this.track = Arrays.copyOf(this.track, size * 2);
+      this.element = Arrays.copyOf(this.element, size * 2);
+      start = Arrays.copyOf(start, size * 2);
+      duration = Arrays.copyOf(duration, size * 2);
+    }
+    this.track[size] = track;
+    this.element[size] = element;
+    start[size] = startSeconds;
+    duration[size] = durationSeconds;
+    size++;
+    order = null;
+    extend(startSeconds + durationSeconds);
+  }
+
+  // colour ramps of elements, from their delays after start; reversed ramps run from the last colour to the first one
+  public void addColors(Color[][] ramps, boolean reversed, double[] delays, double startSeconds, Duration duration, ColorSink sink) {
+    final ColorTrack colors = new ColorTrack(ramps, reversed, sink);
+    for (int i = 0; i < ramps.length; i++) {
+      add(colors, i, startSeconds + delays[i], duration.toSeconds());
+    }
+  }
+
+  // the choreography lasts at least until seconds
+  public void extend(double seconds) {
+    if (seconds > totalSeconds) {
+      totalSeconds = seconds;
+      setCycleDuration(Duration.seconds(totalSeconds));
+    }
+  }
+
+  // steps running at the last pulse
+  public int running() {
+    return runningCount;
+  }
+
+  @Override
+  protected void interpolate(double frac) {
+    if (order == null) {
+      sort();
+    }
+    final double now = frac * totalSeconds;
+    if (now < time) { //a new cycle, what is left of the last one ends first
+      advance(totalSeconds);
+      next = 0;
+    }
+    advance(now);
+    time = now;
+  }
+
+  private void advance(double now) {
+    while (next < size && start[order[next]] <= now) {
+      if (runningCount == running.length) {
+        running = Arrays.copyOf(running, runningCount * 2);
+      }
+      running[runningCount++] = order[next++];
+    }
+    for (int k = 0; k < runningCount; k++) {
+      final int step = running[k];
+      final double local = duration[step] <= 0 ? 1 : min((now - start[step]) / duration[step], 1);
+      track[step].update(element[step], local);
+      if (local >= 1) { //done, the last running step takes its place
+        running[k--] = running[--runningCount];
+      }
+    }
+  }
+
+  // start times are not negative, so the bits of a float sort like the floats themselves and leave room for the index
+  private void sort() {
+    final long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = (long) Float.floatToIntBits((float) max(start[i], 0)) << 32 | i;
+    }
+    Arrays.sort(keys);
+    order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = (int) keys[i];
+    }
+    next = 0;
+    runningCount = 0;
+    time = -1;
+  }
+
+  public interface Track {
+    // frac goes from 0 to 1, linear in time
+    void update(int element, double frac);
+  }
+
+  public interface ColorSink {
+    void apply(int element, Color color);
+  }
+
+  // progress becomes an index into colour ramps computed up front, and an element is repainted only when its index
+  // changes, so no Color is created while it runs
+  private static class ColorTrack implements Track {
+
+    final Color[][] ramps;
+    final boolean reversed;
+    final ColorSink sink;
+    final int[] current;
+
+    ColorTrack(Color[][] ramps, boolean reversed, ColorSink sink) {
+      this.ramps = ramps;
+      this.reversed = reversed;
+      this.sink = sink;
+      current = new int[ramps.length];
+      Arrays.fill(current, -1);
+    }
+
+    @Override
+    public void update(int element, double frac) {
+      int index = (int) Math.round(Interpolator.EASE_BOTH.interpolate(0., 1., frac) * (RAMP_STEPS - 1));
+      if (reversed) {
+        index = RAMP_STEPS - 1 - index;
+      }
+      if (index != current[element]) {
+        current[element] = index;
+        sink.apply(element, ramps[element][index]);
+      }
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+
+import java.util.Arrays;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+
+// Falling leaves and petals. Every particle follows its sinusoidal path in closed form from its spawn time,
+// and all of them are drawn on one canvas per pulse. A particle keeps the slot its sprite pool lent it until it has
+// faded out. Used on the FX thread only.
+class FallingParticles extends Canvas {
+
+  public static final double FALL_DURATION = 30;
+  public static final double FADE_DELAY = 5;
+  public static final double FADE_DURATION = 2;
+  public static final double LIFETIME = FALL_DURATION + FADE_DELAY + FADE_DURATION;
+
+  final SpritePool sprites;
+  public double rate = 1;
+  private final double minX;
+  private final double minY;
+  private int[] live = new int[0]; // slots of the falling particles
+  private int count;
+  private double time;
+  private boolean dirty;
+
+  // by slot
+  private double[] startX = new double[0];
+  private double[] startY = new double[0];
+  private double[] toY = new double[0];
+  private double[] startTime = new double[0];
+  private double[] spin = new double[0];
+  private double[] radiusX = new double[0];
+  private double[] radiusY = new double[0];
+  private Paint[] fill = new Paint[0];
+
+  private final AnimationTimer timer = new AnimationTimer() {
+
+    private long last = -1;
+
+    @Override
+    public void handle(long now) {
+      if (last < 0) {
+        last = now;
+      }
+      update(time + (now - last) / 1e9 * rate);
+      last = now;
+    }
+  };
+
+  public FallingParticles(double minX, double minY, double width, double height, int capacity) {
+    super(width, height);
+    this.minX = minX;
+    this.minY = minY;
+    this.sprites = new SpritePool(capacity);
+    setTranslateX(minX);
+    setTranslateY(minY);
+    setMouseTransparent(true);
+  }
+
+  public void start() {
+    timer.start();
+  }
+
+  public void stop() {
+    timer.stop();
+  }
+
+  // false when capacity particles are already falling
+  public boolean spawn(double x, double y, double toY, double radiusX, double radiusY, Paint fill, double spin) {
+    final int i = sprites.acquire();
+    if (i < 0) {
+      return false;
+    }
+    ensureCapacity(sprites.created());
+    live[count++] = i;
+    startX[i] = x;
+    startY[i] = y;
+    this.toY[i] = toY;
+    startTime[i] = time;
+    this.spin[i] = spin;
+    this.radiusX[i] = radiusX;
+    this.radiusY[i] = radiusY;
+    this.fill[i] = fill;
+    return true;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  // moves the clock and drops the particles that have faded out, without drawing
+  public void advance(double time) {
+    this.time = time;
+    for (int k = 0; k < count; k++) {
+      final int i = live[k];
+      if (time - startTime[i] >= LIFETIME) {
+        release(k--);
+      }
+    }
+  }
+
+  public void update(double time) {
+    this.time = time;
+    if (count == 0 && !dirty) {
+      return;
+    }
+    final GraphicsContext gc = getGraphicsContext2D();
+    gc.setTransform(1, 0, 0, 1, 0, 0);
+    gc.clearRect(0, 0, getWidth(), getHeight());
+
+    for (int k = 0; k < count; k++) {
+      final int i = live[k];
+      final double age = time - startTime[i];
+      if (age >= LIFETIME) {
+        release(k--);
+        continue;
+      }
+      final double fall = Interpolator.EASE_BOTH.interpolate(0., 1., Math.min(age / FALL_DURATION, 1));
+      final double y = startY[i] + (toY[i] - startY[i]) * fall;
+      final double x = startX[i] + 50 * sin((y - startY[i]) / 20);
+      final double angle = (y * 2 + spin[i]) * PI / 180;
+      final double fade = (age - FALL_DURATION - FADE_DELAY) / FADE_DURATION;
+      final double opacity = fade <= 0 ? 1 : 1 - Interpolator.EASE_BOTH.interpolate(0., 1., fade);
+
+      final double cos = cos(angle);
+      final double sin = sin(angle);
+      gc.setTransform(cos, sin, -sin, cos, x - minX, y - minY);
+      gc.setGlobalAlpha(opacity);
+      gc.setFill(fill[i]);
+      gc.fillOval(-radiusX[i], -radiusY[i], radiusX[i] * 2, radiusY[i] * 2);
+    }
+    gc.setGlobalAlpha(1);
+    dirty = count > 0;
+  }
+
+  // faded out, the sprite goes back and the last particle takes its place
+  private void release(int k) {
+    final int i = live[k];
+    fill[i] = null;
+    sprites.release(i);
+    live[k] = live[--count];
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= startX.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, startX.length * 2);
+    live = Arrays.copyOf(live, newCapacity);
+    startX = Arrays.copyOf(startX, newCapacity);
+    startY = Arrays.copyOf(startY, newCapacity);
+    toY = Arrays.copyOf(toY, newCapacity);
+    startTime = Arrays.copyOf(startTime, newCapacity);
+    spin = Arrays.copyOf(spin, newCapacity);
+    radiusX = Arrays.copyOf(radiusX, newCapacity);
+    radiusY = Arrays.copyOf(radiusY, newCapacity);
+    fill = Arrays.copyOf(fill, newCapacity);
+  }
+}
@@ -12,16 +12,18 @@ import javafx.scene.transform.Translate;
 import java.util.ArrayList;
 import java.util.List;
 
-import static java.lang.Math.random;
-
 
 public class Flower extends Group {
 
   private final int N = 5;
+  private static final double PETAL_OFFSET = 5;
   private final List<Ellipse> petals = new ArrayList<Ellipse>(2 * N + 1);
 
-  public Flower() {
-    final Color color = Color.color(1, random() * 0.4 + 0.6, 1);
+  public Flower(RandomUtil random) {
+    this(color(random));
+  }
+
+  public Flower(Color color) {
     final int petalsNum = 2 * N;
     for (int i = 0; i < petalsNum; i++) {
       final Ellipse petal = new Ellipse(2, 5);
@@ -32,7 +34,7 @@ public class Flower extends Group {
         petal.setFill(color.saturate());
       }
 
-      petal.getTransforms().add(new Translate(0, 5));
+      petal.getTransforms().add(new Translate(0, PETAL_OFFSET));
       petal.setRotate(360 / petalsNum * i);
       getChildren().add(petal);
       petals.add(petal);
@@ -47,9 +49,37 @@ public class Flower extends Group {
     }
   }
 
-  public Flower(final Branch branch) {
-    this();
-    setTranslateY(branch.length / 2);
+  public Flower(final Branch branch, RandomUtil random) {
+    this(branch.length, random);
+  }
+
+  public Flower(double branchLength, RandomUtil random) {
+    this(branchLength, color(random));
+  }
+
+  public Flower(double branchLength, Color color) {
+    this(color);
+    setTranslateY(branchLength / 2);
+  }
+
+  public static Color color(RandomUtil random) {
+    return Color.color(1, random.random() * 0.4 + 0.6, 1);
+  }
+
+  // every other petal only, the flower keeps its outline
+  public void setFullPetals(boolean full) {
+    for (int i = 1; i < 2 * N; i += 2) {
+      petals.get(i).setVisible(full);
+    }
+  }
+
+  // where the petal i of getPetals() sits in the flower, the centre comes last
+  public double petalX(int i) {
+    return i < 2 * N ? -PETAL_OFFSET * Math.sin(Math.toRadians(petals.get(i).getRotate())) : 0;
+  }
+
+  public double petalY(int i) {
+    return i < 2 * N ? PETAL_OFFSET * Math.cos(Math.toRadians(petals.get(i).getRotate())) : 0;
   }
 
   public List<Ellipse> getPetals() {
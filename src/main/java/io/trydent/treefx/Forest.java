@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.animation.Interpolator;
+import javafx.animation.Transition;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.effect.ColorAdjust;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+
+// Many grown trees out of a few templates: every template is generated and built once, rendered into a few colour
+// variants and dropped, and every tree of the forest is an ImageView of one variant with its own place, size and sway
+public class Forest {
+
+  public static final int DEFAULT_VARIANTS = 4;
+  public static final Duration WIND_CYCLE_DURATION = Duration.seconds(7);
+  private final Group content;
+  private final int trees;
+  private final int templates;
+  private final int treeDepth;
+  private final RandomUtil random;
+  public int variants = DEFAULT_VARIANTS;
+  public double width = 700; // trees are spread over x in [-width / 2, width / 2]
+  public double depth = 200; // the smallest trees stand this much above the ground line
+  final Animation wind = new Wind(WIND_CYCLE_DURATION);
+  private Image[][] images; // by template and variant
+  private double[] minX;
+  private double[] minY;
+
+  public Forest(Group content, int trees, int templates, int treeDepth, long seed) {
+    this.content = content;
+    this.trees = trees;
+    this.templates = templates;
+    this.treeDepth = treeDepth;
+    this.random = new RandomUtil(seed);
+  }
+
+  // builds the templates, then plants the forest and lets it sway once they are rendered
+  public void start() {
+    images = new Image[templates][];
+    minX = new double[templates];
+    minY = new double[templates];
+    final Group[] templateContent = new Group[templates];
+    final Tree[] templateTrees = new Tree[templates];
+    for (int t = 0; t < templates; t++) {
+      final TreeGenerator generator = new TreeGenerator(null, treeDepth, random.nextSeed());
+      generator.flowersNumber = 0; //flowers are hidden while the tree is green
+      templateContent[t] = new Group();
+      templateTrees[t] = new TreeBuilder(templateContent[t], 0, random.split()).build(generator.generateDecoratedModel());
+    }
+    Util.runWhenAttached(() -> {
+      for (int t = 0; t < templates; t++) {
+        render(t, templateContent[t], templateTrees[t]);
+      }
+      plant();
+      wind.play();
+    });
+  }
+
+  private void render(int template, Group templateContent, Tree tree) {
+    for (List<Branch> generation : tree.generations) {
+      for (Branch branch : generation) {
+        branch.base.setEndY(branch.length);
+        branch.base.setStrokeWidth(branch.length / 25);
+      }
+    }
+    for (List<BranchPath> generation : tree.paths) {
+      for (BranchPath path : generation) {
+        path.grow(1);
+        path.setStrokeWidth(path.grownStrokeWidth());
+      }
+    }
+    for (Leaf leaf : tree.leafage) {
+      leaf.setScaleX(1);
+      leaf.setScaleY(1);
+    }
+
+    final SnapshotParameters parameters = new SnapshotParameters();
+    parameters.setFill(Color.TRANSPARENT);
+    final Bounds bounds = templateContent.getBoundsInParent();
+    minX[template] = bounds.getMinX();
+    minY[template] = bounds.getMinY();
+    images[template] = new Image[variants];
+    for (int v = 0; v < variants; v++) {
+      //the first variant keeps the template colours
+      templateContent.setEffect(v == 0 ? null : new ColorAdjust(random.getRandom(0.06) - 1, random.getRandom(0.2) - 1, random.getRandom(0.15) - 1, 0));
+      images[template][v] = templateContent.snapshot(parameters, null);
+    }
+  }
+
+  private void plant() {
+    final ImageView[] views = new ImageView[trees];
+    final double[] scales = new double[trees];
+    for (int i = 0; i < trees; i++) {
+      final int template = random.getRandomIndex(0, templates - 1);
+      final ImageView view = new ImageView(images[template][random.getRandomIndex(0, variants - 1)]);
+      view.setX(minX[template]);
+      view.setY(minY[template]);
+      view.setMouseTransparent(true);
+      final double scale = random.random() * 0.5 + 0.25; //smaller trees are further away
+      final Rotate sway = new Rotate(0);
+      view.getTransforms().addAll(new Translate(random.random() * width - width / 2, (0.75 - scale) / 0.5 * depth), new Scale(scale * (random.random() < 0.5 ? -1 : 1), scale), sway);
+      ((Wind) wind).add(sway, random.random() * 2 + 1);
+      views[i] = view;
+      scales[i] = scale;
+    }
+    final Integer[] order = new Integer[trees];
+    for (int i = 0; i < trees; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingDouble(i -> scales[i])); //far trees first, near ones are drawn over them
+    for (Integer i : order) {
+      Util.addChildToParent(content, views[i]);
+    }
+  }
+
+  // One clock sways all trees of the forest, each one around its base
+  private static class Wind extends Transition {
+
+    private Rotate[] rotations = new Rotate[16];
+    private double[] amplitude = new double[16];
+    private int size;
+
+    Wind(Duration duration) {
+      setCycleCount(Animation.INDEFINITE);
+      setAutoReverse(true);
+      setInterpolator(Interpolator.EASE_BOTH);
+      setCycleDuration(duration);
+    }
+
+    void add(Rotate rotation, double rotationAmplitude) {
+      if (size == rotations.length) {
+        rotations = Arrays.copyOf(rotations, size * 2);
+        amplitude = Arrays.copyOf(amplitude, size * 2);
+      }
+      rotations[size] = rotation;
+      amplitude[size] = rotationAmplitude;
+      size++;
+    }
+
+    @Override
+    protected void interpolate(double frac) {
+      for (int i = 0; i < size; i++) {
+        rotations[i].setAngle(amplitude[i] * frac);
+      }
+    }
+  }
+}
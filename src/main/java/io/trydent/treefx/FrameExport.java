@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import javafx.util.Duration;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+
+// Renders the Night scene offscreen to a numbered PNG sequence, frame-00000.png on. The clock moves by a fixed step
+// per frame and the scene is seeded, so the same settings give the same frames however fast the box is. The tree is
+// complete before the first frame, it grows as in the live scene but never waits for a generation. The FX thread
+// moves the scene and renders a frame while workers encode the frames before it; a frame's pixels go straight into
+// the image a worker encodes, and a few of those images go round, which bounds the frames in flight.
+// The scene is set with the -Dtreefx properties of Night, the seed is 42 unless -Dtreefx.seed is given.
+public final class FrameExport {
+
+  private static final long SEED = Long.getLong("treefx.seed", 42);
+  private static final int THREADS = Integer.getInteger("treefx.exportThreads", Runtime.getRuntime().availableProcessors());
+
+  private FrameExport() {
+  }
+
+  // java io.trydent.treefx.FrameExport directory [seconds] [fps] [width] [from]
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: FrameExport directory [seconds] [fps] [width] [from]");
+      System.exit(1);
+    }
+    final Path directory = Paths.get(args[0]);
+    final double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+    final double fps = args.length > 2 ? Double.parseDouble(args[2]) : 30;
+    final int width = args.length > 3 ? Integer.parseInt(args[3]) : Night.WIDTH;
+    final double from = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+    Files.createDirectories(directory);
+
+    final CountDownLatch started = new CountDownLatch(1);
+    Platform.startup(started::countDown);
+    started.await();
+    final long start = System.nanoTime();
+    final int frames = export(directory, (int) Math.round(seconds * fps), fps, width, from);
+    final double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%s: %d frames of %d px in %.1f s, %.1f frames per second%n", directory, frames, width, elapsed, frames / elapsed);
+    Platform.exit();
+  }
+
+  public static int export(Path directory, int frames, double fps, int width, double from) throws Exception {
+    final NightScene scene = new NightScene(Night.WIDTH);
+    scene.flowerPlacement = Night.FLOWER_PLACEMENT;
+    scene.branchBudget = Night.BRANCH_BUDGET;
+    scene.memoryBudget = Night.MEMORY_BUDGET;
+    if (Night.SNAPSHOT != null) {
+      scene.snapshot = TreeSnapshot.read(Paths.get(Night.SNAPSHOT));
+    }
+    final Animator animator = scene.animator(Night.NUMBER_OF_BRANCH_GENERATIONS, Night.LOD_DEPTH, Night.NUM_BLADES, Night.FLOWERS_NUMBER, Night.GRASS_MODE, SEED);
+    animator.grown = new GenerationService(Runnable::run).generate(animator.treeGenerator()).join();
+    animator.build();
+    final Forest forest = Night.FOREST > 0 ? scene.forest(Night.FOREST, Night.FOREST_TEMPLATES, Night.FOREST_GENERATIONS, SEED ^ Night.FOREST) : null;
+    if (forest != null) {
+      forest.start();
+    }
+    final FutureTask<Void> attached = new FutureTask<>(() -> { //the forest sways by the export clock too
+      if (forest != null) {
+        forest.wind.pause();
+      }
+    }, null);
+    Util.runWhenAttached(attached);
+    attached.get();
+
+    final double scale = width / scene.width;
+    final int height = (int) Math.round(NightScene.SCENE_HEIGHT * scale);
+    final SnapshotParameters parameters = new SnapshotParameters();
+    parameters.setFill(Color.BLACK);
+    parameters.setTransform(new Scale(scale, scale));
+    parameters.setViewport(new Rectangle2D(0, 0, width, height));
+    final WritableImage frame = new WritableImage(width, height);
+
+    final BlockingQueue<BufferedImage> images = new ArrayBlockingQueue<>(THREADS + 2);
+    for (int i = 0; i < THREADS + 2; i++) {
+      images.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+    }
+    final ExecutorService encoders = Executors.newFixedThreadPool(THREADS, runnable -> {
+      final Thread thread = new Thread(runnable, "treefx-export");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final CompletableFuture<?>[] written = new CompletableFuture<?>[frames];
+    try {
+      for (int i = 0; i < frames; i++) {
+        final double time = from + i / fps;
+        final BufferedImage image = images.take();
+        onFx(() -> {
+          animator.seek(time);
+          if (forest != null) {
+            forest.wind.jumpTo(Duration.seconds(time));
+          }
+          scene.getRoot().snapshot(parameters, frame);
+          final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+          frame.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        });
+        final File file = directory.resolve(String.format("frame-%05d.png", i)).toFile();
+        written[i] = CompletableFuture.runAsync(() -> {
+          try {
+            ImageIO.write(image, "png", file);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } finally {
+            images.add(image);
+          }
+        }, encoders);
+      }
+      CompletableFuture.allOf(written).join();
+    } finally {
+      encoders.shutdown();
+      encoders.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    return frames;
+  }
+
+  // runs task on the FX thread and waits for it
+  private static void onFx(Runnable task) throws Exception {
+    final FutureTask<Void> future = new FutureTask<>(task, null);
+    Platform.runLater(future);
+    future.get();
+  }
+}
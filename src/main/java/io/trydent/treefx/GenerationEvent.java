@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// Expansion of one tree generation in TreeGenerator
+@Name("io.trydent.treefx.Generation")
+@Label("Tree Generation")
+@Category("TreeFX")
+@StackTrace(false)
+class GenerationEvent extends Event {
+
+  @Label("Depth")
+  int depth;
+
+  @Label("Branches")
+  int branches;
+
+  @Label("Crown")
+  int crown;
+
+  @Label("Parallel")
+  boolean parallel;
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+
+// Generates and builds whole trees and their grass on an executor while the scene plays. A generation works on a copy
+// of the generator taken when it is submitted and builds its nodes off the scene, so the finished tree or grass is one
+// node to attach. Progress counts generations, a cancelled generation stops before its next one.
+public class GenerationService {
+
+  private final Executor executor;
+
+  public GenerationService() {
+    this(Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "treefx-generation");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY); // the playing scene comes first
+      return thread;
+    }));
+  }
+
+  // any executor, one starting a virtual thread per task included
+  public GenerationService(Executor executor) {
+    this.executor = executor;
+  }
+
+  public Generation generate(TreeGenerator generator) {
+    final TreeGenerator copy = generator.copy();
+    copy.detached = true;
+    final Generation generation = new Generation(copy.treeDepth);
+    try {
+      executor.execute(() -> generation.run(copy));
+    } catch (RejectedExecutionException e) {
+      generation.completeExceptionally(e);
+    }
+    return generation;
+  }
+
+  CompletableFuture<GrassGenerator.Grass> generate(GrassGenerator generator) {
+    final GrassGenerator copy = generator.copy();
+    final CompletableFuture<GrassGenerator.Grass> grass = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          grass.complete(copy.generateDetached());
+        } catch (RuntimeException | Error e) {
+          grass.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      grass.completeExceptionally(e);
+    }
+    return grass;
+  }
+
+  // A complete TreeGrowth whose tree isn't attached anywhere yet
+  public static class Generation extends CompletableFuture<TreeGrowth> {
+
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(0);
+    private volatile int built;
+    private volatile int generations;
+
+    Generation(int generations) {
+      this.generations = generations;
+    }
+
+    public int built() {
+      return built;
+    }
+
+    public int generations() {
+      return generations;
+    }
+
+    // built generations over all of them, updated on the FX thread
+    public ReadOnlyDoubleProperty progressProperty() {
+      return progress.getReadOnlyProperty();
+    }
+
+    private void run(TreeGenerator generator) {
+      if (isDone()) { //cancelled while waiting
+        return;
+      }
+      try {
+        final TreeGrowth growth = generator.startTree();
+        generations = growth.generations();
+        progress(growth);
+        while (!isDone() && growth.next()) {
+          progress(growth);
+        }
+        complete(growth);
+      } catch (RuntimeException | Error e) {
+        completeExceptionally(e);
+      }
+    }
+
+    private void progress(TreeGrowth growth) {
+      built = growth.built();
+      final double value = built / (double) generations;
+      Platform.runLater(() -> progress.set(value));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+
+// Draws every blade of a GrassModel on one canvas instead of one Path node per blade
+public class GrassCanvas extends Canvas {
+
+  final GrassModel model;
+  final Color[] fill;
+  int active; // blades drawn
+  private final double minX;
+  private final double minY;
+
+  public GrassCanvas(GrassModel model) {
+    this.model = model;
+    fill = model.autumnColor.clone(); //autumn color of blade
+    active = model.size;
+
+    double minX = 0, maxX = 0, minY = 0, maxY = 0;
+    for (int i = 0; i < model.size; i++) { //blade tip stays within its height around the base
+      minX = min(minX, model.x[i] - model.h[i]);
+      maxX = max(maxX, model.x[i] + model.h[i] + GrassModel.BLADE_WIDTH);
+      minY = min(minY, model.y[i] - model.h[i]);
+      maxY = max(maxY, model.y[i] + model.h[i]);
+    }
+    this.minX = minX;
+    this.minY = minY;
+    setWidth(maxX - minX);
+    setHeight(maxY - minY);
+    setTranslateX(minX);
+    setTranslateY(minY);
+  }
+
+  public void draw(double phase) {
+    final GraphicsContext gc = getGraphicsContext2D();
+    gc.clearRect(0, 0, getWidth(), getHeight());
+    for (int i = 0; i < active; i++) {
+      final double x = model.x[i] - minX;
+      final double y = model.y[i] - minY;
+      final double h = model.h[i];
+      final double tipX = GrassModel.tipX(h, model.x[i], model.rand[i], phase);
+      final double tipY = GrassModel.tipY(h, tipX);
+      final double controlY = tipY - h / 4; //code to bend blade
+
+      gc.setFill(fill[i]);
+      gc.beginPath();
+      gc.moveTo(x, y);
+      gc.quadraticCurveTo(x - 10, y + controlY, x + tipX, y + tipY);
+      gc.quadraticCurveTo(x - 10, y + controlY, x + GrassModel.BLADE_WIDTH, y);
+      gc.fill();
+    }
+  }
+}
@@ -14,23 +14,80 @@ class GrassGenerator {
 
   private final int numBlades;
   Group content;
+  long seed;
+  Mode mode = Mode.NODES;
+  double width = GrassModel.GROUND_WIDTH; // of the ground the blades cover
 
   public GrassGenerator(Group content, int numBlades) {
+    this(content, numBlades, RandomUtil.randomSeed());
+  }
+
+  public GrassGenerator(Group content, int numBlades, long seed) {
     this.content = content;
     this.numBlades = numBlades;
+    this.seed = seed;
+  }
+
+  public GrassGenerator copy() {
+    final GrassGenerator copy = new GrassGenerator(content, numBlades, seed);
+    copy.mode = mode;
+    copy.width = width;
+    return copy;
+  }
+
+  public GrassModel generateModel() {
+    return new GrassModel(numBlades, width, new RandomUtil(seed));
   }
 
   public List<Blade> generateGrass() {
+    final List<Blade> grass = blades(generateModel());
+    for (Blade blade : grass) {
+      Util.addChildToParent(content, blade);
+    }
+    return grass;
+  }
 
+  public GrassCanvas generateCanvas() {
+    final GrassCanvas canvas = new GrassCanvas(generateModel());
+    Util.addChildToParent(content, canvas);
+    return canvas;
+  }
 
+  // the grass of mode in a group of its own that isn't in any scene, so any thread may generate it
+  public Grass generateDetached() {
+    if (mode == Mode.CANVAS) {
+      final GrassCanvas canvas = new GrassCanvas(generateModel());
+      return new Grass(new Group(canvas), null, canvas);
+    }
+    final List<Blade> blades = blades(generateModel());
+    return new Grass(new Group(blades.toArray(new Blade[0])), blades, null);
+  }
+
+  private List<Blade> blades(GrassModel model) {
     List<Blade> grass = new ArrayList<Blade>(numBlades);
     for (int i = 0; i < numBlades; i++) {
+      grass.add(new Blade(model, i));
+    }
+    return grass;
+  }
 
-      final Blade blade = new Blade();
-      grass.add(blade);
+  // Grass generated off the scene, it joins the scene as one group
+  public static class Grass {
 
-      Util.addChildToParent(content, blade);
+    public final Group group;
+    final List<Blade> blades; // NODES
+    final GrassCanvas canvas; // CANVAS
+
+    Grass(Group group, List<Blade> blades, GrassCanvas canvas) {
+      this.group = group;
+      this.blades = blades;
+      this.canvas = canvas;
     }
-    return grass;
+  }
+
+  public enum Mode {
+
+    NODES, // one Path per blade
+    CANVAS // all blades drawn on one canvas, for many thousands of blades
   }
 }
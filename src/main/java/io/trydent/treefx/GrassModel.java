@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.paint.Color;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sqrt;
+
+
+// Blade parameters in flat arrays, shared by Blade nodes and GrassCanvas
+public class GrassModel {
+
+  public static final double BLADE_WIDTH = 3;
+  public static final double GROUND_WIDTH = 340; // blades spread over this around the tree in a scene of SCENE_WIDTH
+
+  final int size;
+  final double[] x; // width of grass ground
+  final double[] y; // height of grass ground
+  final double[] h; // height of blade
+  final double[] rand; // to separate blade movement
+  final Color[] springColor;
+  final Color[] autumnColor;
+
+  public GrassModel(int size, RandomUtil random) {
+    this(size, GROUND_WIDTH, random);
+  }
+
+  // blades centred on the tree over width, the same random draws for any width
+  public GrassModel(int size, double width, RandomUtil random) {
+    this.size = size;
+    x = new double[size];
+    y = new double[size];
+    h = new double[size];
+    rand = new double[size];
+    springColor = new Color[size];
+    autumnColor = new Color[size];
+    for (int i = 0; i < size; i++) {
+      springColor[i] = Color.color(random.random() * 0.5, random.random() * 0.5 + 0.5, 0.).darker();
+      autumnColor[i] = Color.color(random.random() * 0.4 + 0.3, random.random() * 0.1 + 0.4, random.random() * 0.2);
+      x[i] = random.getRandom(width / 2);
+      y[i] = random.getRandom(20) + 20;
+      h[i] = (50 * 1.5 - y[i] / 2) * random.getRandom(0.3);
+      rand[i] = random.getRandom(PI / 4);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  //calculating shift x for top of blade
+  public static double tipX(double h, double x, double rand, double phase) {
+    return (h / 4) + ((cos(phase + (x + 400.) * PI / 1600 + rand) + 1) / 2.) * (-3. / 4) * h;
+  }
+
+  //path of top of blade is circle
+  public static double tipY(double h, double tipX) {
+    return sqrt(h * h - tipX * tipX);
+  }
+}
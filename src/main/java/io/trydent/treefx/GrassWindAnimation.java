@@ -12,6 +12,7 @@ import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.util.Duration;
 
+import java.util.Collections;
 import java.util.List;
 
 import static java.lang.Math.PI;
@@ -22,19 +23,56 @@ class GrassWindAnimation extends Transition {
   final private Duration animationTime = Duration.seconds(3);
   final private DoubleProperty phase = new SimpleDoubleProperty(0);
   final private Timeline tl = new Timeline(Animation.INDEFINITE);
+  private GrassCanvas canvas;
+  private final List<Blade> blades;
+  private int active;
+  public int stride = 1; // the blades move every stride pulses
+  private int pulse;
 
   public GrassWindAnimation(List<Blade> blades) {
 
     setCycleCount(Animation.INDEFINITE);
     setInterpolator(Interpolator.LINEAR);
     setCycleDuration(animationTime);
+    this.blades = blades;
     for (final Blade blade : blades) {
       blade.phase.bind(phase);
     }
+    active = blades.size();
+  }
+
+  public GrassWindAnimation(GrassCanvas canvas) {
+    this(Collections.<Blade>emptyList());
+    this.canvas = canvas;
+  }
+
+  // shows the first blades only, the others stop following the wind
+  public void setActive(int blades) {
+    if (canvas != null) {
+      canvas.active = Math.min(blades, canvas.model.size);
+      return;
+    }
+    blades = Math.min(blades, this.blades.size());
+    for (int i = Math.min(active, blades); i < Math.max(active, blades); i++) {
+      final Blade blade = this.blades.get(i);
+      if (i < blades) {
+        blade.phase.bind(phase);
+      } else {
+        blade.phase.unbind();
+      }
+      blade.setVisible(i < blades);
+    }
+    active = blades;
   }
 
   @Override
   protected void interpolate(double frac) {
+    if (stride > 1 && pulse++ % stride != 0) {
+      return;
+    }
     phase.set(frac * 2 * PI);
+    if (canvas != null) {
+      canvas.draw(phase.get());
+    }
   }
 }
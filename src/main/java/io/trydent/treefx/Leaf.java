@@ -10,8 +10,6 @@ import javafx.scene.shape.Ellipse;
 import java.util.ArrayList;
 import java.util.List;
 
-import static java.lang.Math.random;
-
 
 public class Leaf extends Ellipse {
 
@@ -19,18 +17,32 @@ public class Leaf extends Ellipse {
   private final int N = 5;
   private final List<Ellipse> petals = new ArrayList<Ellipse>(2 * N + 1);
 
-  public Leaf(Branch parentBranch) {
-    super(0, parentBranch.length / 2., 2, parentBranch.length / 2.);
+  public Leaf(Branch parentBranch, RandomUtil random) {
+    this(parentBranch.length, parentBranch.globalH, random);
+  }
+
+  public Leaf(double branchLength, double branchGlobalH, RandomUtil random) {
+    this(branchLength, autumnColor(random), springColor(branchGlobalH, random));
+  }
+
+  public Leaf(double branchLength, Color autumnColor, Color springColor) {
+    super(0, branchLength / 2., 2, branchLength / 2.);
     setScaleX(0); //trick to hide leaves
     setScaleY(0);
+    AUTUMN_COLOR = autumnColor;
+    setFill(springColor);
+  }
 
-    final double rand = random() * 0.5 + 0.3;
-    AUTUMN_COLOR = Color.color(random() * 0.1 + 0.8, rand, rand / 2);
+  public static Color autumnColor(RandomUtil random) {
+    final double rand = random.random() * 0.5 + 0.3;
+    return Color.color(random.random() * 0.1 + 0.8, rand, rand / 2);
+  }
 
-    Color color = new Color(random() * 0.5, random() * 0.5 + 0.5, 0, 1);
-    if (parentBranch.globalH < 400 && random() < 0.8) { //bottom leaf is darker
+  public static Color springColor(double branchGlobalH, RandomUtil random) {
+    Color color = new Color(random.random() * 0.5, random.random() * 0.5 + 0.5, 0, 1);
+    if (branchGlobalH < 400 && random.random() < 0.8) { //bottom leaf is darker
       color = color.darker();
     }
-    setFill(color);
+    return color;
   }
 }
@@ -4,36 +4,45 @@
  */
 package io.trydent.treefx;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.scene.Group;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.CycleMethod;
-import javafx.scene.paint.LinearGradient;
-import javafx.scene.paint.Stop;
-import javafx.scene.shape.Ellipse;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
-import javafx.scene.transform.Rotate;
-import javafx.scene.transform.Translate;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 public class Night extends Application {
 
-  private static final String SOURCE = Night.class.getClassLoader().getResource("Ronkorb_etenraku_ryuteki.wav").toExternalForm();
-  private static final int SCENE_WIDTH = 1000;
-  private static final int SCENE_HEIGHT = 800;
-  private static final int NUMBER_OF_BRANCH_GENERATIONS = 8;
-  private static final int NUM_BLADES = 200;
-  private Group rootContent;
-  private Group grassContent;
-  private Group treeContent;
+  private static final String SOURCE_NAME = "Ronkorb_etenraku_ryuteki.wav";
+  static final int NUMBER_OF_BRANCH_GENERATIONS = Integer.getInteger("treefx.generations", 8);
+  static final int LOD_DEPTH = Integer.getInteger("treefx.lod", TreeBuilder.NO_LOD); // deeper branches are merged
+  static final int BRANCH_BUDGET = Integer.getInteger("treefx.branches", 0); // grows the longest branches first
+  static final long MEMORY_BUDGET = Long.getLong("treefx.memoryMB", 0) << 20;
+  static final int NUM_BLADES = Integer.getInteger("treefx.blades", 200);
+  static final int WIDTH = Integer.getInteger("treefx.width", NightScene.SCENE_WIDTH); // wider scenes spread the grass wider
+  static final int FLOWERS_NUMBER = Integer.getInteger("treefx.flowers", TreeGenerator.FLOWERS_NUMBER);
+  static final GrassGenerator.Mode GRASS_MODE = GrassGenerator.Mode.valueOf(System.getProperty("treefx.grass", "NODES"));
+  static final TreeBuilder.Placement FLOWER_PLACEMENT = TreeBuilder.Placement.valueOf(System.getProperty("treefx.flowerPlacement", "RANDOM"));
+  private static final boolean AUDIO = Boolean.parseBoolean(System.getProperty("treefx.audio", "true"));
+  static final String SNAPSHOT = System.getProperty("treefx.snapshot"); // tree file written by TreeSnapshot
+  static final int FOREST = Integer.getInteger("treefx.forest", 0); // trees behind the main one
+  static final int FOREST_TEMPLATES = Integer.getInteger("treefx.forestTemplates", 4);
+  static final int FOREST_GENERATIONS = Integer.getInteger("treefx.forestGenerations", 7);
+  private static final double ROTATE = Double.parseDouble(System.getProperty("treefx.rotate", "0")); // minutes a tree stays
+  private static final long SEED = Long.getLong("treefx.seed", RandomUtil.randomSeed()); // -Dtreefx.seed replays a scene
+
+  private MediaPlayer sound; // playback stops once the player is collected
 
   public static void main(String[] args) {
     launch(args);
@@ -41,9 +50,13 @@ public class Night extends Application {
 
   @Override
   public void start(final Stage stage) {
+    final NightScene scene = new NightScene(WIDTH);
+    scene.flowerPlacement = FLOWER_PLACEMENT;
+    scene.branchBudget = BRANCH_BUDGET;
+    scene.memoryBudget = MEMORY_BUDGET;
     stage.initStyle(StageStyle.TRANSPARENT);
     stage.sizeToScene();
-    stage.setScene(new AppScene());
+    stage.setScene(scene);
 
     //close application
     final Button close = new Button("X");
@@ -55,7 +68,7 @@ public class Night extends Application {
       System.exit(0);
     });
     close.setTranslateY(stage.getScene().getHeight() - 20);
-    rootContent.getChildren().add(close);
+    scene.rootContent.getChildren().add(close);
 
     stage.getScene().setOnMouseEntered(arg0 -> close.setOpacity(1));
     stage.getScene().setOnMouseExited(arg0 -> close.setOpacity(0));
@@ -67,32 +80,78 @@ public class Night extends Application {
         System.exit(0);
     });
 
-    new Animator(
-      new TreeGenerator(treeContent, NUMBER_OF_BRANCH_GENERATIONS),
-      new GrassGenerator(grassContent, NUM_BLADES)
-    ).run();
-
-    MediaPlayer sound = new MediaPlayer(new Media(SOURCE));
-    sound.setCycleCount(MediaPlayer.INDEFINITE);
-
-    sound.play();
-
+    // the window is up, everything else is loaded and generated on workers and attached as it comes
+    final Startup startup = new Startup();
+    startup.report("window shown");
+    if (AUDIO) {
+      startup.stage("audio", this::loadSound)
+        .thenAccept(player -> Platform.runLater(() -> sound = player));
+    }
+    final CompletableFuture<TreeModel> snapshot = SNAPSHOT == null ? CompletableFuture.completedFuture(null)
+      : startup.stage("snapshot", () -> readSnapshot(SNAPSHOT)).exceptionally(e -> null); //a bad file grows a new tree
+    startup.stage("scene", snapshot, model -> {
+      scene.snapshot = model;
+      final Animator animator = scene.animator(NUMBER_OF_BRANCH_GENERATIONS, LOD_DEPTH, NUM_BLADES, FLOWERS_NUMBER, GRASS_MODE, SEED);
+      animator.run();
+      return animator;
+    }).thenAccept(animator -> Util.runWhenAttached(() -> {
+      startup.report("playing");
+      if (ROTATE > 0) {
+        scene.snapshot = null; //the next trees are new ones
+        rotate(scene, animator, new GenerationService(), new RandomUtil(SEED ^ Double.doubleToLongBits(ROTATE)));
+      }
+    }));
+    if (FOREST > 0) {
+      startup.stage("forest", () -> {
+        scene.forest(FOREST, FOREST_TEMPLATES, FOREST_GENERATIONS, SEED ^ FOREST).start();
+        return null;
+      });
+    }
   }
 
-  private class AppScene extends Scene {
-
-    public AppScene() {
-      super(rootContent = new Group(), SCENE_WIDTH, SCENE_HEIGHT, Color.TRANSPARENT);
-      rootContent.setClip(new Ellipse(0, SCENE_HEIGHT / 2, SCENE_WIDTH / 3, SCENE_HEIGHT / 2)); //Scene shape and size
+  // after ROTATE minutes the next tree is generated in the background, then it takes the place of the current one
+  private static void rotate(NightScene scene, Animator current, GenerationService service, RandomUtil seeds) {
+    final PauseTransition wait = new PauseTransition(Duration.minutes(ROTATE));
+    wait.setOnFinished(event -> {
+      final Animator next = scene.animator(NUMBER_OF_BRANCH_GENERATIONS, LOD_DEPTH, NUM_BLADES, FLOWERS_NUMBER, GRASS_MODE, seeds.nextSeed());
+      final GenerationService.Generation tree = service.generate(next.treeGenerator());
+      final CompletableFuture<GrassGenerator.Grass> grass = service.generate(next.grassGenerator());
+      CompletableFuture.allOf(tree, grass).whenComplete((done, failure) -> { //on the generation thread
+        if (failure != null) { //the current tree stays for another round
+          System.err.println("treefx: next tree failed (" + failure + ")");
+          Platform.runLater(() -> rotate(scene, current, service, seeds));
+          return;
+        }
+        next.grown = tree.join();
+        next.grownGrass = grass.join();
+        Util.runWhenAttached(() -> { //the attacher keeps order, so the old scene goes before the new one comes
+          current.stop();
+          scene.clear();
+        });
+        next.run();
+        Util.runWhenAttached(() -> rotate(scene, next, service, seeds));
+      });
+    });
+    wait.play();
+  }
 
-      final Rectangle background = new Rectangle(-SCENE_WIDTH / 2, 0, SCENE_WIDTH, SCENE_HEIGHT);
-      background.setFill(new LinearGradient(0, 0, 0, SCENE_HEIGHT, false, CycleMethod.NO_CYCLE, new Stop(0, Color.YELLOWGREEN), new Stop(0.3, Color.LIGHTBLUE),
-        new Stop(1., new Color(1, 1, 1, 0)))); //background color
-      rootContent.getChildren().add(background);
-      rootContent.getChildren().add(treeContent = new Group()); // io.treefx.tree layout
-      rootContent.getChildren().add(grassContent = new Group()); // grass layout
-      rootContent.getTransforms().addAll(new Translate(SCENE_WIDTH / 2, SCENE_HEIGHT), new Rotate(180));
+  // the player starts streaming as soon as it is created and plays once enough is buffered
+  private MediaPlayer loadSound() {
+    final URL source = Night.class.getClassLoader().getResource(SOURCE_NAME);
+    if (source == null) {
+      throw new IllegalStateException(SOURCE_NAME + " not found");
+    }
+    final MediaPlayer player = new MediaPlayer(new Media(source.toExternalForm()));
+    player.setCycleCount(MediaPlayer.INDEFINITE);
+    player.setAutoPlay(true);
+    return player;
+  }
 
+  private static TreeModel readSnapshot(String file) {
+    try {
+      return TreeSnapshot.read(Paths.get(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 }
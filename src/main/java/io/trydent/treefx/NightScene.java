@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Translate;
+
+
+// The night sky with its tree and grass layouts, without window decorations or sound
+class NightScene extends Scene {
+
+  public static final int SCENE_WIDTH = 1000;
+  public static final int SCENE_HEIGHT = 800;
+  final double width; // the sky and the ground widen with it, the tree stays as it is
+  final Group rootContent;
+  final Group forestContent;
+  final Group treeContent;
+  final Group grassContent;
+  public TreeModel snapshot; // a decorated tree to show instead of generating one
+  public TreeBuilder.Placement flowerPlacement = TreeBuilder.Placement.RANDOM;
+  public int branchBudget; // see TreeGenerator.branchBudget, generations bound the depth
+  public long memoryBudget;
+
+  public NightScene() {
+    this(SCENE_WIDTH);
+  }
+
+  public NightScene(double width) {
+    super(new Group(), width, SCENE_HEIGHT, Color.TRANSPARENT);
+    this.width = width;
+    rootContent = (Group) getRoot();
+    rootContent.setClip(new Ellipse(0, SCENE_HEIGHT / 2, width / 3, SCENE_HEIGHT / 2)); //Scene shape and size
+
+    final Rectangle background = new Rectangle(-width / 2, 0, width, SCENE_HEIGHT);
+    background.setFill(new LinearGradient(0, 0, 0, SCENE_HEIGHT, false, CycleMethod.NO_CYCLE, new Stop(0, Color.YELLOWGREEN), new Stop(0.3, Color.LIGHTBLUE),
+      new Stop(1., new Color(1, 1, 1, 0)))); //background color
+    background.setCache(true); //never changes, drawn from a bitmap instead of filling the gradient every pulse
+    rootContent.getChildren().add(background);
+    rootContent.getChildren().add(forestContent = new Group()); // trees behind the main one
+    rootContent.getChildren().add(treeContent = new Group()); // io.treefx.tree layout
+    rootContent.getChildren().add(grassContent = new Group()); // grass layout
+    rootContent.getTransforms().addAll(new Translate(width / 2, SCENE_HEIGHT), new Rotate(180));
+  }
+
+  public Animator animator(int generations, int lodDepth, int blades, int flowers, GrassGenerator.Mode grassMode, long seed) {
+    final RandomUtil seeds = new RandomUtil(seed);
+    final TreeGenerator treeGenerator = new TreeGenerator(treeContent, generations, seeds.nextSeed());
+    treeGenerator.flowersNumber = flowers;
+    treeGenerator.lodDepth = lodDepth;
+    treeGenerator.snapshot = snapshot;
+    treeGenerator.flowerPlacement = flowerPlacement;
+    treeGenerator.branchBudget = branchBudget;
+    treeGenerator.memoryBudget = memoryBudget;
+    final GrassGenerator grassGenerator = new GrassGenerator(grassContent, blades, seeds.nextSeed());
+    grassGenerator.mode = grassMode;
+    grassGenerator.width = width * GrassModel.GROUND_WIDTH / SCENE_WIDTH;
+    return new Animator(treeGenerator, grassGenerator, seeds.nextSeed());
+  }
+
+  // takes the tree and the grass of an animator away, the next one grows in their place
+  public void clear() {
+    Util.ATTACHER.clear(treeContent);
+    Util.ATTACHER.clear(grassContent);
+  }
+
+  public Forest forest(int trees, int templates, int generations, long seed) {
+    return new Forest(forestContent, trees, templates, generations, seed);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.Arrays;
+
+
+// Holds a target frame time by trading scene detail. Every second the 90th percentile of the time between pulses is
+// compared to the target: two slow seconds in a row drop a quality level, a run of fast ones climbs back, anything in
+// between holds. A climb that turns slow soon after doubles the run the next climb needs, so a box at the edge of a
+// level settles on the lower one instead of swinging between the two.
+public class QualityGovernor extends AnimationTimer {
+
+  public static final int LEVELS = 5;
+  private static final long WINDOW_NANOS = 1_000_000_000L;
+  private static final int MIN_PULSES = 10; // fewer pulses in a window mean the scene was paused or hidden
+  private static final int SLOW_WINDOWS = 2;
+  private static final int FAST_WINDOWS = 5;
+  private static final int MAX_FAST_WINDOWS = 120;
+
+  private final Animator animator;
+  public double targetMillis = Double.parseDouble(System.getProperty("treefx.targetFrame", "16.7"));
+  public double slowFactor = 1.5; // a window is slow above targetMillis * slowFactor
+  public double fastFactor = 1.15; // and fast below targetMillis * fastFactor
+  // bounds of the knobs, the top level uses the scene as it was built
+  public int minBlades;
+  public int maxBlades;
+  public int minSprites;
+  public int maxSprites;
+  public double minFlowers = 0.25; // share of the flowers that bloom at the lowest level
+  public int maxWindStride = 3; // pulses per wind step at the lowest level
+  public int lodFloor = 6; // generations built at the two lowest levels merge branches deeper than this
+  private int level = LEVELS - 1;
+
+  private final double[] intervals = new double[256];
+  private int pulses;
+  private long lastPulse = -1;
+  private long windowStart = -1;
+  private long windows;
+  private long lastClimb = Long.MIN_VALUE / 2; // window of the last climb
+  private int slow;
+  private int fast;
+  private int fastNeeded = FAST_WINDOWS;
+
+  public QualityGovernor(Animator animator) {
+    this.animator = animator;
+    maxBlades = animator.blades();
+    minBlades = maxBlades / 4;
+    maxSprites = animator.particles.sprites.capacity;
+    minSprites = Math.min(50, maxSprites);
+  }
+
+  public int level() {
+    return level;
+  }
+
+  @Override
+  public void handle(long now) {
+    if (lastPulse >= 0 && pulses < intervals.length) {
+      intervals[pulses++] = (now - lastPulse) / 1e6;
+    }
+    lastPulse = now;
+    if (windowStart < 0) {
+      windowStart = now;
+    }
+    if (now - windowStart < WINDOW_NANOS) {
+      return;
+    }
+    windowStart = now;
+    if (pulses >= MIN_PULSES) {
+      windows++;
+      Arrays.sort(intervals, 0, pulses);
+      judge(intervals[(int) (pulses * 0.9)]);
+    }
+    pulses = 0;
+  }
+
+  private void judge(double millis) {
+    if (millis > targetMillis * slowFactor) {
+      fast = 0;
+      if (++slow >= SLOW_WINDOWS && level > 0) {
+        //the last climb didn't hold, wait longer before the next one
+        fastNeeded = windows - lastClimb <= fastNeeded ? Math.min(fastNeeded * 2, MAX_FAST_WINDOWS) : FAST_WINDOWS;
+        slow = 0;
+        setLevel(level - 1);
+      }
+    } else if (millis < targetMillis * fastFactor) {
+      slow = 0;
+      if (++fast >= fastNeeded && level < LEVELS - 1) {
+        fast = 0;
+        lastClimb = windows;
+        setLevel(level + 1);
+      }
+    } else {
+      slow = 0;
+      fast = 0;
+    }
+  }
+
+  public void setLevel(int level) {
+    this.level = Math.max(0, Math.min(LEVELS - 1, level));
+    final double quality = this.level / (double) (LEVELS - 1);
+    animator.setActiveBlades((int) Math.round(minBlades + quality * (maxBlades - minBlades)));
+    animator.particles.sprites.capacity = (int) Math.round(minSprites + quality * (maxSprites - minSprites));
+    animator.showFlowers(minFlowers + quality * (1 - minFlowers), this.level >= 2);
+    animator.setWindStride(1 + (LEVELS - 1 - this.level) * (maxWindStride - 1) / (LEVELS - 1));
+    if (this.level <= 1) {
+      animator.limitLodDepth(lodFloor);
+    }
+  }
+}
@@ -5,33 +5,127 @@
 package io.trydent.treefx;
 
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
-import static java.lang.Math.random;
+import static java.lang.Math.abs;
+import static java.lang.Math.exp;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.round;
+import static java.lang.Math.sqrt;
 
+// Not thread safe: give every thread or subtree its own instance with split()
 public class RandomUtil {
 
-  private static final Random rand = new Random();
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+  private static final double SQRT2 = sqrt(2);
 
-  public static double getRandom(double variation) {
+  private final SplittableRandom random;
+
+  public RandomUtil() {
+    this(new SplittableRandom());
+  }
+
+  public RandomUtil(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  private RandomUtil(SplittableRandom random) {
+    this.random = random;
+  }
+
+  public static long randomSeed() {
+    return new SplittableRandom().nextLong();
+  }
+
+  public long nextSeed() {
+    return random.nextLong();
+  }
+
+  public RandomUtil split() {
+    return new RandomUtil(random.split());
+  }
+
+  public double random() {
+    return random.nextDouble();
+  }
+
+  public double getRandom(double variation) {
     return (random() * variation * 2 + 1 - variation);
   }
 
-  public static double getGaussianRandom(double mean, double deviation) {
-    return mean + deviation * rand.nextGaussian();
+  public double getGaussianRandom(double mean, double deviation) {
+    return mean + deviation * inverseNormalCdf(openRandom());
   }
 
-  public static double getGaussianRandom(double from, double to, double mean, double deviation) {
-    double result = 0;
-    do
-    {
-      result = getGaussianRandom(mean, deviation);
-    } while (result < from || result > to);
-    return result;
+  // inverse transform sampling of the normal distribution truncated to [from, to], no rejection loop
+  public double getGaussianRandom(double from, double to, double mean, double deviation) {
+    if (deviation == 0) { //no spread, the bounds still hold
+      return min(max(mean, from), to);
+    }
+    double a = (from - mean) / deviation;
+    double b = (to - mean) / deviation;
+    final boolean mirrored = a > 0; //sample the lower tail, where the cdf keeps its precision
+    if (mirrored) {
+      final double t = a;
+      a = -b;
+      b = -t;
+    }
+    final double cdfA = normalCdf(a);
+    final double cdfB = normalCdf(b);
+    double z;
+    if (cdfB > cdfA || b >= 0) {
+      z = inverseNormalCdf(cdfA + (cdfB - cdfA) * openRandom());
+    } else { //far tail, the cdf underflows: the density is almost exponential from b downwards
+      final double rate = -b;
+      z = b + log(1 - openRandom() * (1 - exp(-rate * (b - a)))) / rate;
+    }
+    z = min(max(z, a), b);
+    return mean + deviation * (mirrored ? -z : z);
   }
 
-  public static int getRandomIndex(int from, int to) {
+  public int getRandomIndex(int from, int to) {
     return (int) round(random() * (to - from)) + from;
   }
+
+  // uniform in (0, 1)
+  private double openRandom() {
+    return ((random.nextLong() >>> 11) + 0.5) * DOUBLE_UNIT;
+  }
+
+  static double normalCdf(double x) {
+    return 0.5 * erfc(-x / SQRT2);
+  }
+
+  // Chebyshev approximation, fractional error below 1.2e-7
+  private static double erfc(double x) {
+    final double z = abs(x);
+    final double t = 1 / (1 + 0.5 * z);
+    final double ans = t * exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 +
+      t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223 + t * 0.17087277)))))))));
+    return x >= 0 ? ans : 2 - ans;
+  }
+
+  // Acklam's rational approximation, relative error below 1.15e-9
+  static double inverseNormalCdf(double p) {
+    if (p <= 0) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    if (p >= 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    if (p < 0.02425) {
+      final double q = sqrt(-2 * log(p));
+      return (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00) /
+        ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q + 3.754408661907416e+00) * q + 1);
+    }
+    if (p > 1 - 0.02425) {
+      return -inverseNormalCdf(1 - p);
+    }
+    final double q = p - 0.5;
+    final double r = q * q;
+    return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q /
+      (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r + 6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+  }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.ParallelTransition;
+import javafx.animation.SequentialTransition;
+import javafx.scene.Node;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+
+// Counts pulses on the FX thread and samples the scene once a second, so JMX readers never touch the scene graph.
+// The scene is walked once when the metrics start, after that the batch attacher counts the nodes it adds and clears.
+// Phase changes are recorded as SeasonEvents.
+public class SceneMetrics extends AnimationTimer implements SceneMetricsMBean {
+
+  public static final String OBJECT_NAME = "io.trydent.treefx:type=SceneMetrics";
+  private static final double[] BUCKETS_MILLIS = {5, 10, 17, 20, 25, 34, 50, 100, 250, Double.POSITIVE_INFINITY};
+  private static final long SAMPLE_NANOS = 1_000_000_000L;
+
+  private final Animator animator;
+  private final Node content;
+  private final long[] histogram = new long[BUCKETS_MILLIS.length]; // of pulse intervals
+  private final com.sun.management.ThreadMXBean threads;
+  private long lastPulse = -1;
+  private long lastSample = -1;
+  private long allocatedAtSample;
+  private long pulsesAtSample;
+  private long baseNodes = -1; // nodes at start less the ones the attacher counted by then
+  private volatile long pulses;
+  private volatile int nodeCount;
+  private volatile int runningAnimations;
+  private volatile int fallingSprites;
+  private volatile double allocatedPerFrame;
+  private volatile Animator.Phase phase;
+  private SeasonEvent season;
+
+  public SceneMetrics(Animator animator, Node content) {
+    this.animator = animator;
+    this.content = content;
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    this.threads = threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+  }
+
+  // registers the bean, replacing the one of a previous scene
+  public void register() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+    }
+  }
+
+  @Override
+  public void handle(long now) {
+    if (lastPulse >= 0) {
+      final double millis = (now - lastPulse) / 1e6;
+      int bucket = 0;
+      while (millis > BUCKETS_MILLIS[bucket]) {
+        bucket++;
+      }
+      synchronized (histogram) {
+        histogram[bucket]++;
+      }
+    }
+    lastPulse = now;
+    pulses++;
+    if (season != null) {
+      season.pulses++;
+    }
+
+    final Animator.Phase current = animator.animation == null ? null : animator.phase();
+    if (current != phase) {
+      season(current);
+    }
+    if (lastSample < 0 || now - lastSample >= SAMPLE_NANOS) {
+      sample();
+      lastSample = now;
+    }
+  }
+
+  private void season(Animator.Phase next) {
+    if (season != null) {
+      season.end();
+      if (season.shouldCommit()) {
+        season.phase = phase.name();
+        season.commit();
+      }
+    }
+    phase = next;
+    season = null;
+    if (next != null) {
+      season = new SeasonEvent();
+      season.begin();
+    }
+  }
+
+  private void sample() {
+    if (baseNodes < 0) {
+      baseNodes = BatchAttacher.count(content.getScene() == null ? content : content.getScene().getRoot()) - Util.ATTACHER.attachedNodes();
+    }
+    nodeCount = (int) (baseNodes + Util.ATTACHER.attachedNodes());
+    final Choreography seasons = animator.seasons;
+    runningAnimations = (animator.animation == null ? 0 : running(animator.animation))
+      + (seasons == null || seasons.getStatus() != Animation.Status.RUNNING ? 0 : seasons.running());
+    if (threads != null && threads.isThreadAllocatedMemoryEnabled()) {
+      final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      if (pulsesAtSample > 0 && pulses > pulsesAtSample) {
+        allocatedPerFrame = (allocated - allocatedAtSample) / (double) (pulses - pulsesAtSample);
+      }
+      allocatedAtSample = allocated;
+    }
+    pulsesAtSample = pulses;
+    fallingSprites = animator.particles.count();
+    if (season != null) {
+      season.nodes = Math.max(season.nodes, nodeCount);
+    }
+  }
+
+  private static int running(Animation animation) {
+    if (animation.getStatus() != Animation.Status.RUNNING) {
+      return 0;
+    }
+    int running = 1;
+    final List<Animation> children = animation instanceof ParallelTransition ? ((ParallelTransition) animation).getChildren()
+      : animation instanceof SequentialTransition ? ((SequentialTransition) animation).getChildren() : null;
+    if (children != null) {
+      for (Animation child : children) {
+        running += running(child);
+      }
+    }
+    return running;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  @Override
+  public int getRunningAnimations() {
+    return runningAnimations;
+  }
+
+  @Override
+  public int getFallingSprites() {
+    return fallingSprites;
+  }
+
+  @Override
+  public String getPhase() {
+    final Animator.Phase phase = this.phase;
+    return phase == null ? "" : phase.name();
+  }
+
+  @Override
+  public long getPulseCount() {
+    return pulses;
+  }
+
+  @Override
+  public long[] getPulseIntervalHistogram() {
+    synchronized (histogram) {
+      return histogram.clone();
+    }
+  }
+
+  @Override
+  public double[] getPulseIntervalBucketsMillis() {
+    return BUCKETS_MILLIS.clone();
+  }
+
+  @Override
+  public double getAllocatedBytesPerFrame() {
+    return allocatedPerFrame;
+  }
+
+  @Override
+  public int getQualityLevel() {
+    final QualityGovernor governor = animator.governor;
+    return governor == null ? -1 : governor.level();
+  }
+
+  @Override
+  public void resetPulseIntervalHistogram() {
+    synchronized (histogram) {
+      Arrays.fill(histogram, 0);
+    }
+  }
+}
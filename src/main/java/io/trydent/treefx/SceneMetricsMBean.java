@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+
+// JMX view of a running scene, registered as io.trydent.treefx:type=SceneMetrics
+public interface SceneMetricsMBean {
+
+  // nodes in the scene
+  int getNodeCount();
+
+  // running wind and growth transitions and season steps, a step moves one leaf, petal or blade
+  int getRunningAnimations();
+
+  int getFallingSprites();
+
+  String getPhase();
+
+  long getPulseCount();
+
+  // pulses by time since the previous pulse, not by the work done in them, bucket i counts the intervals up to
+  // PulseIntervalBucketsMillis[i]
+  long[] getPulseIntervalHistogram();
+
+  double[] getPulseIntervalBucketsMillis();
+
+  double getAllocatedBytesPerFrame();
+
+  // level of the QualityGovernor, -1 without one
+  int getQualityLevel();
+
+  void resetPulseIntervalHistogram();
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// One phase of the scene, from its first pulse to the first pulse of the next one
+@Name("io.trydent.treefx.Season")
+@Label("Season")
+@Category("TreeFX")
+@StackTrace(false)
+class SeasonEvent extends Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Pulses")
+  long pulses;
+
+  @Label("Max Nodes")
+  int nodes;
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+
+// Uniform grid over the branches of a TreeModel in tree coordinates, for picking and placement without the scene graph.
+// A branch is filed in every cell its segment bounds touch, anything outside the grid falls into its border cells.
+// Positions are the ones of the still tree, wind moves branches a few pixels away from them.
+public class SpatialIndex {
+
+  public static final double CELL_SIZE = 25;
+  private final double minX;
+  private final double minY;
+  private final double cellSize;
+  private final int columns;
+  private final int rows;
+  private final int[][] cells;
+  private final int[] cellCount;
+
+  // segments by branch index
+  private double[] startX = new double[0];
+  private double[] startY = new double[0];
+  private double[] endX = new double[0];
+  private double[] endY = new double[0];
+  private int size;
+
+  private int[] visited = new int[0]; // last query that met the branch, a branch may sit in several cells
+  private int query;
+
+  // the scene area a tree grows in
+  public SpatialIndex() {
+    this(-NightScene.SCENE_WIDTH / 2, 0, NightScene.SCENE_WIDTH, NightScene.SCENE_HEIGHT, CELL_SIZE);
+  }
+
+  public SpatialIndex(double minX, double minY, double width, double height, double cellSize) {
+    this.minX = minX;
+    this.minY = minY;
+    this.cellSize = cellSize;
+    columns = max(1, (int) Math.ceil(width / cellSize));
+    rows = max(1, (int) Math.ceil(height / cellSize));
+    cells = new int[columns * rows][];
+    cellCount = new int[columns * rows];
+  }
+
+  // files the branches of the model below end that aren't indexed yet
+  public void update(TreeModel model, int end) {
+    ensureCapacity(end);
+    for (int i = size; i < end; i++) {
+      startX[i] = model.startX(i);
+      startY[i] = model.startY(i);
+      endX[i] = model.endX(i);
+      endY[i] = model.endY(i);
+      file(i);
+    }
+    size = max(size, end);
+  }
+
+  public void update(TreeModel model) {
+    update(model, model.size());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public double startX(int branch) {
+    return startX[branch];
+  }
+
+  public double startY(int branch) {
+    return startY[branch];
+  }
+
+  public double endX(int branch) {
+    return endX[branch];
+  }
+
+  public double endY(int branch) {
+    return endY[branch];
+  }
+
+  // branch closest to the point within radius, -1 if there is none
+  public int nearest(double x, double y, double radius) {
+    final int[] best = {-1};
+    final double[] bestDistance = {radius * radius};
+    forEach(x - radius, y - radius, x + radius, y + radius, branch -> {
+      final double distance = distanceSquared(branch, x, y);
+      if (distance <= bestDistance[0]) {
+        bestDistance[0] = distance;
+        best[0] = branch;
+      }
+    });
+    return best[0];
+  }
+
+  // every branch whose segment bounds meet the area, once
+  public void forEach(double areaMinX, double areaMinY, double areaMaxX, double areaMaxY, IntConsumer action) {
+    query++;
+    final int fromColumn = column(areaMinX);
+    final int toColumn = column(areaMaxX);
+    final int fromRow = row(areaMinY);
+    final int toRow = row(areaMaxY);
+    for (int r = fromRow; r <= toRow; r++) {
+      for (int c = fromColumn; c <= toColumn; c++) {
+        final int cell = r * columns + c;
+        for (int k = 0; k < cellCount[cell]; k++) {
+          final int branch = cells[cell][k];
+          if (visited[branch] == query) {
+            continue;
+          }
+          visited[branch] = query;
+          if (max(startX[branch], endX[branch]) >= areaMinX && min(startX[branch], endX[branch]) <= areaMaxX
+            && max(startY[branch], endY[branch]) >= areaMinY && min(startY[branch], endY[branch]) <= areaMaxY) {
+            action.accept(branch);
+          }
+        }
+      }
+    }
+  }
+
+  // count crown branches spread evenly over the crown area rather than over the branches: a random occupied cell
+  // first, then a random crown branch in it, so dense clusters of twigs don't draw most of the picks
+  public int[] evenly(TreeModel model, int count, RandomUtil random) {
+    final int crownSize = model.crownSize();
+    if (crownSize == 0) {
+      return new int[0];
+    }
+    update(model);
+    //crown branches by the cell of their middle, where leaves and flowers sit
+    final int[] cellOf = new int[crownSize];
+    final int[] start = new int[cells.length + 1];
+    for (int i = 0; i < crownSize; i++) {
+      final int branch = model.crown(i);
+      cellOf[i] = row((startY[branch] + endY[branch]) / 2) * columns + column((startX[branch] + endX[branch]) / 2);
+      start[cellOf[i] + 1]++;
+    }
+    int occupiedCount = 0;
+    final int[] occupied = new int[min(crownSize, cells.length)];
+    for (int cell = 0; cell < cells.length; cell++) {
+      if (start[cell + 1] > 0) {
+        occupied[occupiedCount++] = cell;
+      }
+      start[cell + 1] += start[cell];
+    }
+    final int[] fill = Arrays.copyOf(start, cells.length);
+    final int[] byCell = new int[crownSize];
+    for (int i = 0; i < crownSize; i++) {
+      byCell[fill[cellOf[i]]++] = model.crown(i);
+    }
+
+    final int[] places = new int[count];
+    for (int i = 0; i < count; i++) {
+      final int cell = occupied[random.getRandomIndex(0, occupiedCount - 1)];
+      places[i] = byCell[random.getRandomIndex(start[cell], start[cell + 1] - 1)];
+    }
+    return places;
+  }
+
+  private void file(int branch) {
+    final int toColumn = column(max(startX[branch], endX[branch]));
+    final int toRow = row(max(startY[branch], endY[branch]));
+    for (int r = row(min(startY[branch], endY[branch])); r <= toRow; r++) {
+      for (int c = column(min(startX[branch], endX[branch])); c <= toColumn; c++) {
+        final int cell = r * columns + c;
+        if (cells[cell] == null) {
+          cells[cell] = new int[8];
+        } else if (cellCount[cell] == cells[cell].length) {
+          cells[cell] = Arrays.copyOf(cells[cell], cellCount[cell] * 2);
+        }
+        cells[cell][cellCount[cell]++] = branch;
+      }
+    }
+  }
+
+  private double distanceSquared(int branch, double x, double y) {
+    final double dx = endX[branch] - startX[branch];
+    final double dy = endY[branch] - startY[branch];
+    final double lengthSquared = dx * dx + dy * dy;
+    final double t = lengthSquared == 0 ? 0 : max(0, min(1, ((x - startX[branch]) * dx + (y - startY[branch]) * dy) / lengthSquared));
+    final double nearestX = startX[branch] + t * dx - x;
+    final double nearestY = startY[branch] + t * dy - y;
+    return nearestX * nearestX + nearestY * nearestY;
+  }
+
+  private int column(double x) {
+    return max(0, min(columns - 1, (int) floor((x - minX) / cellSize)));
+  }
+
+  private int row(double y) {
+    return max(0, min(rows - 1, (int) floor((y - minY) / cellSize)));
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= startX.length) {
+      return;
+    }
+    final int newCapacity = max(capacity, startX.length * 2);
+    startX = Arrays.copyOf(startX, newCapacity);
+    startY = Arrays.copyOf(startY, newCapacity);
+    endX = Arrays.copyOf(endX, newCapacity);
+    endY = Arrays.copyOf(endY, newCapacity);
+    visited = Arrays.copyOf(visited, newCapacity);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import java.util.Arrays;
+
+
+// Falling leaves and petals borrow their sprite from here, so only as many are kept as fall at once. A sprite is the
+// index of a particle slot, created the first time it is needed and reused once its particle has faded out.
+// Used on the FX thread only.
+class SpritePool {
+
+  public static final int DEFAULT_CAPACITY = 300;
+
+  public int capacity;
+  private int[] free = new int[16];
+  private int freeCount;
+  private int created;
+  private int inUse;
+
+  public SpritePool(int capacity) {
+    this.capacity = capacity;
+  }
+
+  // -1 when capacity sprites are already falling
+  public int acquire() {
+    if (inUse >= capacity) {
+      return -1;
+    }
+    inUse++;
+    return freeCount > 0 ? free[--freeCount] : created++;
+  }
+
+  public void release(int sprite) {
+    if (freeCount == free.length) {
+      free = Arrays.copyOf(free, freeCount * 2);
+    }
+    free[freeCount++] = sprite;
+    inUse--;
+  }
+
+  public int inUse() {
+    return inUse;
+  }
+
+  // sprites handed out so far, the slots a user of the pool has to hold
+  public int created() {
+    return created;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+// Stages of the startup run on worker threads while the window is already showing. Every stage is reported once it is
+// done, with the time it took and the time since startup began; a failed stage is reported with its cause and leaves
+// the stages that don't depend on it running.
+public class Startup {
+
+  private final long started = System.nanoTime();
+  public final Executor executor;
+  public Consumer<String> report = System.out::println;
+
+  public Startup() {
+    this(workers());
+  }
+
+  public Startup(Executor executor) {
+    this.executor = executor;
+  }
+
+  private static ExecutorService workers() {
+    return Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "treefx-startup");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // runs work on a worker
+  public <T> CompletableFuture<T> stage(String name, Supplier<T> work) {
+    return CompletableFuture.supplyAsync(() -> measure(name, work), executor);
+  }
+
+  // runs work on a worker once before is done
+  public <T, R> CompletableFuture<R> stage(String name, CompletableFuture<T> before, Function<T, R> work) {
+    return before.thenApplyAsync(value -> measure(name, () -> work.apply(value)), executor);
+  }
+
+  public void report(String stage) {
+    report.accept(String.format("treefx: %s, at %d ms", stage, (System.nanoTime() - started) / 1_000_000));
+  }
+
+  private <T> T measure(String name, Supplier<T> work) {
+    final StartupEvent event = new StartupEvent();
+    event.stage = name;
+    event.begin();
+    final long start = System.nanoTime();
+    try {
+      final T value = work.get();
+      event.commit();
+      report(name + " done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+      return value;
+    } catch (RuntimeException e) {
+      event.failed = true;
+      event.commit();
+      report(name + " failed (" + e + ")");
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// One stage of the startup, from when its worker picked it up to when it was done
+@Name("io.trydent.treefx.Startup")
+@Label("Startup Stage")
+@Category("TreeFX")
+@StackTrace(false)
+class StartupEvent extends Event {
+
+  @Label("Stage")
+  String stage;
+
+  @Label("Failed")
+  boolean failed;
+}
@@ -4,7 +4,9 @@
  */
 package io.trydent.treefx;
 
+import javafx.geometry.Point2D;
 import javafx.scene.Group;
+import javafx.scene.transform.Rotate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,13 +16,25 @@ public class Tree extends Group {
 
 
   List<List<Branch>> generations = new ArrayList<>();
+  List<List<BranchPath>> paths = new ArrayList<>(); // merged branches, by generation
+  List<List<Rotate>> mergedWind = new ArrayList<>(); // wind turns of paths, leaves and flowers of merged branches, by generation
   List<Branch> crown = new ArrayList<>();// This branches  doesn't have child branches
   List<Flower> flowers = new ArrayList<>();
   List<Leaf> leafage = new ArrayList<>();
+  final SpatialIndex index = new SpatialIndex(); // attached branches in tree coordinates, FX thread
+  final TreeTransforms transforms = new TreeTransforms(); // built branches as the wind bends them
 
   public Tree(int depth) {
     for (int i = 0; i < depth; i++) {
       generations.add(new ArrayList<>());
+      paths.add(new ArrayList<>());
+      mergedWind.add(new ArrayList<>());
     }
   }
+
+  // model index of the branch under a scene point, -1 if no branch is within radius, on the FX thread
+  public int pick(double sceneX, double sceneY, double radius) {
+    final Point2D point = sceneToLocal(sceneX, sceneY);
+    return index.nearest(point.getX(), point.getY(), radius);
+  }
 }
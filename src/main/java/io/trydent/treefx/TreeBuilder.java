@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Translate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class TreeBuilder {
+
+  public static final int NO_LOD = Integer.MAX_VALUE;
+  private final Group content;
+  private final int flowersNumber;
+  private final RandomUtil random;
+  private volatile int lodDepth; // only goes down, for generations not built yet
+  public Placement flowerPlacement = Placement.RANDOM;
+  public boolean detached; // nodes are added right away and the tree is left out of content, to be attached whole
+
+  private int[] subtreeRoot = new int[0]; // of a merged branch, the branch itself for a branch of its own
+  private Branch[] branches = new Branch[0];
+  private BranchPath[][] paths = new BranchPath[0][];
+
+  public TreeBuilder(Group content, int flowersNumber, RandomUtil random) {
+    this(content, flowersNumber, random, NO_LOD);
+  }
+
+  // branches deeper than lodDepth are merged into one BranchPath per generation of their subtree,
+  // and sway with the branch at lodDepth they grow from
+  public TreeBuilder(Group content, int flowersNumber, RandomUtil random, int lodDepth) {
+    this.content = content;
+    this.flowersNumber = flowersNumber;
+    this.random = random;
+    this.lodDepth = lodDepth;
+  }
+
+  public Tree build(TreeModel model) {
+    final Tree tree = start(model);
+    for (int g = 0; g < model.generations(); g++) {
+      buildGeneration(model, tree, g);
+    }
+    finish(model, tree);
+    tree.index.update(model);
+    return tree;
+  }
+
+  // merges branches deeper than depth from the next generation on, generations already built keep their nodes
+  public void limitLodDepth(int depth) {
+    lodDepth = Math.min(lodDepth, depth);
+  }
+
+  public Tree start(TreeModel model) {
+    final Tree tree = new Tree(model.treeDepth());
+    if (!detached) {
+      Util.addChildToParent(content, tree);
+    }
+    return tree;
+  }
+
+  // branches of generation g, the model may already hold deeper ones
+  public void buildGeneration(TreeModel model, Tree tree, int g) {
+    ensureCapacity(model.generationEnd(g));
+    final int lodDepth = this.lodDepth;
+    final List<BranchPath> newPaths = new ArrayList<>(); // attached once they hold all their branches
+    final List<Branch> newPathRoots = new ArrayList<>();
+    for (int i = model.generationStart(g); i < model.generationEnd(g); i++) {
+      final int parent = model.parent(i);
+      final int depth = model.depth(i);
+      if (depth <= lodDepth) {
+        final Branch branch = new Branch(model, i);
+        add(parent < 0 ? tree : branches[parent], branch);
+        tree.generations.get(depth).add(branch);
+        branches[i] = branch;
+        subtreeRoot[i] = i;
+        continue;
+      }
+      final int root = subtreeRoot[parent];
+      subtreeRoot[i] = root;
+
+      final int rootDepth = model.depth(root);
+      if (paths[root] == null) {
+        paths[root] = new BranchPath[model.treeDepth() - rootDepth - 1];
+      }
+      BranchPath path = paths[root][depth - rootDepth - 1];
+      if (path == null) {
+        path = paths[root][depth - rootDepth - 1] = new BranchPath(depth);
+        sway(model, root, depth, path, tree);
+        newPaths.add(path);
+        newPathRoots.add(branches[root]);
+      }
+      final double length = model.length(i);
+      final double originX = model.localX(i, root);
+      final double originY = model.localY(i, root);
+      final double angle = model.localAngle(i, root);
+      path.add(originX, originY, originX + TreeModel.rotatedX(0, length, angle), originY + TreeModel.rotatedY(0, length, angle), length);
+    }
+    // the FX thread may render a node as soon as it is added, so nothing changes it here afterwards
+    for (int p = 0; p < newPaths.size(); p++) {
+      tree.paths.get(g).add(newPaths.get(p)); // generation g holds the branches of depth g
+      add(newPathRoots.get(p), newPaths.get(p));
+    }
+    final int start = model.generationStart(g);
+    final int[] roots = Arrays.copyOfRange(subtreeRoot, start, model.generationEnd(g));
+    if (detached) {
+      tree.transforms.addGeneration(model, g, start, roots);
+    } else { //the FX thread reads the transforms, filing them there keeps their arrays on one thread
+      Util.runWhenAttached(() -> tree.transforms.addGeneration(model, g, start, roots));
+    }
+  }
+
+  // leaves and flowers, once the model is complete
+  public void finish(TreeModel model, Tree tree) {
+    for (int i = 0; i < model.crownSize(); i++) {
+      if (branches[model.crown(i)] != null) {
+        tree.crown.add(branches[model.crown(i)]);
+      }
+    }
+    if (!model.isDecorated()) {
+      decorate(model);
+    }
+    tree.leafage.addAll(generateLeafage(model, tree));
+    tree.flowers.addAll(generateFlowers(model, tree));
+  }
+
+  // samples leaf colours and flower places into a complete model
+  public void decorate(TreeModel model) {
+    model.leafColor = new Color[model.crownSize()];
+    model.leafAutumnColor = new Color[model.crownSize()];
+    for (int i = 0; i < model.crownSize(); i++) {
+      model.leafAutumnColor[i] = Leaf.autumnColor(random);
+      model.leafColor[i] = Leaf.springColor(model.globalH(model.crown(i)), random);
+    }
+    if (flowerPlacement == Placement.EVEN) {
+      model.flowerBranch = new SpatialIndex().evenly(model, flowersNumber, random);
+      model.flowerColor = new Color[model.flowerBranch.length];
+      for (int i = 0; i < model.flowerBranch.length; i++) {
+        model.flowerColor[i] = Flower.color(random);
+      }
+      return;
+    }
+    model.flowerBranch = new int[model.crownSize() == 0 ? 0 : flowersNumber];
+    model.flowerColor = new Color[model.flowerBranch.length];
+    for (int i = 0; i < model.flowerBranch.length; i++) {
+      model.flowerBranch[i] = model.crown(random.getRandomIndex(0, model.crownSize() - 1));
+      model.flowerColor[i] = Flower.color(random);
+    }
+  }
+
+  private void ensureCapacity(int size) {
+    if (size <= branches.length) {
+      return;
+    }
+    final int capacity = Math.max(size, branches.length * 2);
+    subtreeRoot = Arrays.copyOf(subtreeRoot, capacity);
+    branches = Arrays.copyOf(branches, capacity);
+    paths = Arrays.copyOf(paths, capacity);
+  }
+
+  private List<Leaf> generateLeafage(TreeModel model, Tree tree) {
+    List<Leaf> leafage = new ArrayList<>();
+    for (int i = 0; i < model.crownSize(); i++) {
+      final int branch = model.crown(i);
+      Leaf leaf = new Leaf(model.length(branch), model.leafAutumnColor(i), model.leafColor(i));
+      leafage.add(leaf);
+      attach(model, branch, leaf, tree);
+    }
+    return leafage;
+  }
+
+  private List<Flower> generateFlowers(TreeModel model, Tree tree) {
+    List<Flower> flowers = new ArrayList<>(model.flowers());
+    for (int i = 0; i < model.flowers(); i++) {
+      final int branch = model.flowerBranch(i);
+      final Flower flower = new Flower(model.length(branch), model.flowerColor(i));
+      attach(model, branch, flower, tree);
+      flowers.add(flower);
+    }
+    return flowers;
+  }
+
+  // puts node on a branch, a merged branch places it in its subtree root with its own translation kept relative to the branch
+  private void attach(TreeModel model, int branch, Node node, Tree tree) {
+    if (branches[branch] != null) {
+      add(branches[branch], node);
+      return;
+    }
+    final int root = subtreeRoot[branch];
+    node.getTransforms().addAll(0, Arrays.asList(
+      new Translate(model.localX(branch, root), model.localY(branch, root)),
+      new Rotate(model.localAngle(branch, root), 0, 0),
+      new Translate(node.getTranslateX(), node.getTranslateY())
+    ));
+    node.setTranslateX(0);
+    node.setTranslateY(0);
+    sway(model, root, model.depth(branch), node, tree);
+    add(branches[root], node);
+  }
+
+  // nodes of a detached tree aren't in a scene yet, so any thread may add them
+  private void add(Group parent, Node child) {
+    if (detached) {
+      parent.getChildren().add(child);
+    } else {
+      Util.addChildToParent(parent, child);
+    }
+  }
+
+  // merged branches grow from the end of their subtree root or close to it, so they turn around that point
+  private void sway(TreeModel model, int root, int depth, Node node, Tree tree) {
+    final Rotate wind = new Rotate(0, 0, model.length(root));
+    node.getTransforms().add(0, wind);
+    tree.mergedWind.get(depth).add(wind);
+  }
+
+  public enum Placement {
+
+    RANDOM, // any crown branch, flowers gather where twigs are dense
+    EVEN // evenly over the crown area, see SpatialIndex.evenly
+  }
+}
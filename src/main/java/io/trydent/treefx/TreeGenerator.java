@@ -6,80 +6,331 @@ package io.trydent.treefx;
 
 import javafx.scene.Group;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 public class TreeGenerator {
 
   public static final int FLOWERS_NUMBER = 100;
+  static final int PARALLEL_THRESHOLD = 256; // parents expanded by one fork/join task
+  public static final double BUDGET_MIN_LENGTH = 2; // a budget expands branches shorter than the usual 10 down to this
+  // heap of a built, swaying branch with its share of leaves: animatedBytesPerBranch of RetainedSizeBenchmark,
+  // 7.8 to 8.5 KB at depths 8 to 12 on JDK 17. Measure it again there when branch nodes or animations change
+  public static final long BRANCH_BYTES = 8 * 1024;
   public int flowersNumber = FLOWERS_NUMBER;
   public Group content;
   public int treeDepth;
+  public long seed;
+  public ForkJoinPool pool; // null generates on the calling thread
+  public int lodDepth = TreeBuilder.NO_LOD; // deeper branches are merged into paths
+  public TreeModel snapshot; // a complete decorated model, built as it is instead of generating one
+  public TreeBuilder.Placement flowerPlacement = TreeBuilder.Placement.RANDOM;
+  // the longest branches are expanded first until either budget is spent, treeDepth still bounds the depth; 0 for none
+  public int branchBudget;
+  public long memoryBudget; // bytes, BRANCH_BYTES a branch
+  public boolean detached; // see TreeBuilder.detached
 
   public TreeGenerator(Group content, int treeDepth) {
+    this(content, treeDepth, RandomUtil.randomSeed());
+  }
+
+  public TreeGenerator(Group content, int treeDepth, long seed) {
     this.content = content;
     this.treeDepth = treeDepth;
+    this.seed = seed;
+  }
+
+  // the same settings, for a generation that mustn't see later changes to these
+  public TreeGenerator copy() {
+    final TreeGenerator copy = new TreeGenerator(content, treeDepth, seed);
+    copy.flowersNumber = flowersNumber;
+    copy.pool = pool;
+    copy.lodDepth = lodDepth;
+    copy.snapshot = snapshot;
+    copy.flowerPlacement = flowerPlacement;
+    copy.branchBudget = branchBudget;
+    copy.memoryBudget = memoryBudget;
+    copy.detached = detached;
+    return copy;
   }
 
   public Tree generateTree() {
-    final Tree tree = new Tree(treeDepth);
-    Util.addChildToParent(content, tree);
-
-    final Branch root = new Branch();
-    Util.addChildToParent(tree, root);
-    tree.generations.get(0).add(root); //root branch
-
-    for (int i = 1; i < treeDepth; i++) {
-      for (Branch parentBranch : tree.generations.get(i - 1)) {
-        final List<Branch> newBranches = generateBranches(parentBranch, i);
-        if (newBranches.isEmpty()) {
-          tree.crown.add(parentBranch);
+    final TreeGrowth growth = startTree();
+    while (growth.next()) {
+    }
+    growth.updateIndex();
+    return growth.tree;
+  }
+
+  // a tree built one generation per next() call, the first one is already there
+  public TreeGrowth startTree() {
+    if (snapshot != null) {
+      return new TreeGrowth(snapshot, null, builder(new RandomUtil(seed), lodDepth));
+    }
+    final RandomUtil random = new RandomUtil(seed);
+    if (budget() > 0) {
+      return new TreeGrowth(budgetedModel(random.split()), null, builder(random.split(), lodDepth));
+    }
+    final Expansion expansion = new Expansion(random.split());
+    return new TreeGrowth(expansion.model, expansion, builder(random.split(), lodDepth));
+  }
+
+  // branches, leaf colours and flower places, the same generateTree() builds
+  public TreeModel generateDecoratedModel() {
+    final RandomUtil random = new RandomUtil(seed);
+    final TreeModel model = expand(random.split());
+    builder(random.split(), TreeBuilder.NO_LOD).decorate(model);
+    return model;
+  }
+
+  private TreeBuilder builder(RandomUtil random, int lod) {
+    final TreeBuilder builder = new TreeBuilder(content, flowersNumber, random, lod);
+    builder.flowerPlacement = flowerPlacement;
+    builder.detached = detached;
+    return builder;
+  }
+
+  public TreeModel generateModel() {
+    return expand(new RandomUtil(seed).split());
+  }
+
+  private TreeModel expand(RandomUtil random) {
+    if (budget() > 0) {
+      return budgetedModel(random);
+    }
+    final Expansion expansion = new Expansion(random);
+    while (expansion.next()) {
+    }
+    return expansion.model;
+  }
+
+  // branches the budgets allow, 0 without a budget
+  int budget() {
+    int budget = branchBudget;
+    if (memoryBudget > 0) {
+      final int memory = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / BRANCH_BYTES));
+      budget = budget > 0 ? Math.min(budget, memory) : memory;
+    }
+    return budget;
+  }
+
+  // Expands the longest branch left, one at a time, while its three children fit in the budget, then lays the branches
+  // out generation by generation. Generators are split the way Expansion splits them and every branch of 10 or longer
+  // comes before the shorter ones, so a budget of the size of a treeDepth tree gives the model Expansion grows.
+  // Sequential, the order of expansion is the point.
+  private TreeModel budgetedModel(RandomUtil random) {
+    final int budget = budget();
+    final TreeModel grown = new TreeModel(treeDepth); // in expansion order, without generations
+    RandomUtil[] randoms = new RandomUtil[16];
+    int[] firstChild = new int[16]; // -1 for the crown
+    grown.addRoot();
+    randoms[0] = random;
+    firstChild[0] = -1;
+    final PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> grown.length(a) != grown.length(b)
+      ? Double.compare(grown.length(b), grown.length(a)) : Integer.compare(a, b));
+    queue.add(0);
+    int maxDepth = 0;
+    while (!queue.isEmpty() && grown.size() + 3 <= budget) {
+      final int parent = queue.poll();
+      final int depth = grown.depth(parent) + 1;
+      if (grown.length(parent) < BUDGET_MIN_LENGTH || depth >= treeDepth) {
+        continue;
+      }
+      final int first = grown.reserve(3);
+      if (grown.size() > randoms.length) {
+        randoms = Arrays.copyOf(randoms, grown.size() * 2);
+        firstChild = Arrays.copyOf(firstChild, grown.size() * 2);
+      }
+      generateBranches(grown, parent, first, depth, randoms[parent]);
+      firstChild[parent] = first;
+      for (int child = first; child < first + 3; child++) {
+        randoms[child] = randoms[parent].split();
+        firstChild[child] = -1;
+        queue.add(child);
+      }
+      maxDepth = Math.max(maxDepth, depth);
+    }
+
+    //children follow the order of their parents, as in Expansion
+    final TreeModel model = new TreeModel(maxDepth + 1, grown.size());
+    final int[] grownIndex = new int[grown.size()];
+    model.addRoot();
+    model.endGeneration();
+    for (int g = 1; g <= maxDepth; g++) {
+      int children = 0;
+      for (int i = model.generationStart(g - 1); i < model.generationEnd(g - 1); i++) {
+        children += firstChild[grownIndex[i]] < 0 ? 0 : 3;
+      }
+      int next = model.reserve(children);
+      for (int i = model.generationStart(g - 1); i < model.generationEnd(g - 1); i++) {
+        final int first = firstChild[grownIndex[i]];
+        if (first < 0) {
+          model.addCrown(i);
+          continue;
+        }
+        for (int child = first; child < first + 3; child++, next++) {
+          grownIndex[next] = child;
+          model.setBranch(next, i, grown.length(child), grown.angle(child), grown.translateY(child), g);
         }
-        tree.generations.get(i).addAll(generateBranches(parentBranch, i));
       }
+      model.endGeneration();
+    }
+    for (int crown = model.generationStart(maxDepth); crown < model.generationEnd(maxDepth); crown++) {
+      model.addCrown(crown);
     }
-    tree.crown.addAll(tree.generations.get(treeDepth - 1));
-    tree.leafage.addAll(generateLeafage(tree.crown));
-    tree.flowers.addAll(generateFlowers(tree.crown));
-    return tree;
+    return model;
   }
 
-  private List<Branch> generateBranches(Branch parentBranch, int depth) {
-    List<Branch> branches = new ArrayList<>();
-    if (parentBranch == null) { // add root branch
-      branches.add(new Branch());
-    } else {
-      if (parentBranch.length < 10) {
-        return Collections.emptyList();
+  // Grows a TreeModel generation by generation. Every branch owns a generator split from its parent's one,
+  // so the result doesn't depend on expansion order
+  class Expansion {
+
+    final TreeModel model = new TreeModel(treeDepth);
+    private RandomUtil[] randoms; // generators of the previous generation
+    private int depth = 1;
+
+    Expansion(RandomUtil random) {
+      model.addRoot(); //root branch
+      model.endGeneration();
+      randoms = new RandomUtil[]{random};
+      if (treeDepth <= 1) {
+        model.addCrown(0);
+      }
+    }
+
+    // false once every generation is there
+    boolean next() {
+      if (depth >= treeDepth) {
+        return false;
+      }
+      final int i = depth++;
+      final GenerationEvent event = new GenerationEvent();
+      event.begin();
+      final int start = model.generationStart(i - 1);
+      final int end = model.generationEnd(i - 1);
+
+      //children count doesn't need random numbers, so every parent knows where its children go before expanding
+      final int[] firstChild = new int[end - start];
+      int children = 0;
+      for (int parent = start; parent < end; parent++) {
+        if (model.length[parent] < 10) {
+          firstChild[parent - start] = -1;
+          model.addCrown(parent);
+        } else {
+          firstChild[parent - start] = end + children;
+          children += 3;
+        }
+      }
+      model.reserve(children);
+
+      final GenerationTask task = new GenerationTask(model, i, firstChild, randoms, new RandomUtil[children], 0, end - start);
+      if (pool == null) {
+        task.expand();
+      } else {
+        pool.invoke(task);
       }
-      branches.add(new Branch(parentBranch, Branch.Type.LEFT, depth)); //add side left branch
-      branches.add(new Branch(parentBranch, Branch.Type.RIGHT, depth)); // add side right branch
-      branches.add(new Branch(parentBranch, Branch.Type.TOP, depth)); //add top branch
+      model.endGeneration();
+      randoms = task.nextRandoms;
+      if (depth == treeDepth) {
+        for (int crown = model.generationStart(treeDepth - 1); crown < model.generationEnd(treeDepth - 1); crown++) {
+          model.addCrown(crown);
+        }
+      }
+      if (event.shouldCommit()) {
+        event.depth = i;
+        event.branches = children;
+        event.crown = model.crownSize();
+        event.parallel = pool != null;
+        event.commit();
+      }
+      return true;
     }
+  }
 
-    return branches;
+  private static void generateBranches(TreeModel model, int parent, int firstChild, int depth, RandomUtil random) {
+    generateBranch(model, parent, firstChild, Branch.Type.LEFT, depth, random); //add side left branch
+    generateBranch(model, parent, firstChild + 1, Branch.Type.RIGHT, depth, random); // add side right branch
+    generateBranch(model, parent, firstChild + 2, Branch.Type.TOP, depth, random); //add top branch
   }
 
-  private List<Leaf> generateLeafage(List<Branch> crown) {
-    List<Leaf> leafage = new ArrayList<>();
-    for (final Branch branch : crown) {
-      Leaf leaf = new Leaf(branch);
-      leafage.add(leaf);
-      Util.addChildToParent(branch, leaf);
+  private static void generateBranch(TreeModel model, int parent, int index, Branch.Type type, int depth, RandomUtil random) {
+    final double parentLength = model.length[parent];
+    double transY = 0; //place of beggining child branch
+    double locAngle = 0;
+    double length = 0;
+    switch (type) {
+      case TOP: //creates top branch
+        transY = parentLength;
+        length = parentLength * 0.8;
+        locAngle = random.getRandom(10);
+        break;
+      case LEFT: //create left branch
+      case RIGHT: //create right branch
+        transY = parentLength - random.getGaussianRandom(0, parentLength, parentLength / 10, parentLength / 10);
+        locAngle = random.getGaussianRandom(35, 10) * (Branch.Type.LEFT == type ? 1 : -1);
+        final double globalAngle = model.globalAngle[parent] + locAngle;
+        if ((0 > globalAngle || globalAngle > 180) && depth < 4) {
+          length = parentLength * Math.max(0, random.getGaussianRandom(0.3, 0.1)); //branches pointed down are shorter, never negative
+        } else {
+          length = parentLength * 0.6;
+        }
+        break;
     }
-    return leafage;
+    model.setBranch(index, parent, length, locAngle, transY, depth);
   }
 
-  private List<Flower> generateFlowers(List<Branch> crown) {
-    List<Flower> flowers = new ArrayList<>(flowersNumber);
-    for (int i = 0; i < flowersNumber; i++) {
-      Branch branch = crown.get(RandomUtil.getRandomIndex(0, crown.size() - 1));
-      final Flower flower = new Flower(branch);
-      Util.addChildToParent(branch, flower);
-      flowers.add(flower);
+  // Expands a range of parents of one generation, forking while the range is large
+  private static class GenerationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+    private final TreeModel model;
+    private final int depth;
+    private final int[] firstChild;
+    private final RandomUtil[] randoms;
+    private final RandomUtil[] nextRandoms;
+    private final int from;
+    private final int to;
+
+    GenerationTask(TreeModel model, int depth, int[] firstChild, RandomUtil[] randoms, RandomUtil[] nextRandoms, int from, int to) {
+      this.model = model;
+      this.depth = depth;
+      this.firstChild = firstChild;
+      this.randoms = randoms;
+      this.nextRandoms = nextRandoms;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        expand();
+      } else {
+        final int middle = (from + to) >>> 1;
+        invokeAll(
+          new GenerationTask(model, depth, firstChild, randoms, nextRandoms, from, middle),
+          new GenerationTask(model, depth, firstChild, randoms, nextRandoms, middle, to)
+        );
+      }
+    }
+
+    void expand() {
+      final int start = model.generationStart(depth - 1);
+      final int nextStart = model.generationEnd(depth - 1);
+      for (int i = from; i < to; i++) {
+        final int first = firstChild[i];
+        if (first < 0) {
+          continue;
+        }
+        final RandomUtil random = randoms[i];
+        generateBranches(model, start + i, first, depth, random);
+        nextRandoms[first - nextStart] = random.split();
+        nextRandoms[first - nextStart + 1] = random.split();
+        nextRandoms[first - nextStart + 2] = random.split();
+      }
     }
-    return flowers;
   }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+
+// A tree generated and built one generation at a time, leaves and flowers come with the last one.
+// Steps may run on any thread, one at a time; nodes reach the scene through the batch attacher.
+public class TreeGrowth {
+
+  public final Tree tree;
+  final TreeModel model;
+  private final TreeGenerator.Expansion expansion; // null when the model is complete already
+  private final TreeBuilder builder;
+  private volatile int built; // generations with their nodes
+
+  TreeGrowth(TreeModel model, TreeGenerator.Expansion expansion, TreeBuilder builder) {
+    this.expansion = expansion;
+    this.builder = builder;
+    this.model = model;
+    this.tree = builder.start(model);
+    step();
+  }
+
+  public int generations() {
+    return tree.generations.size();
+  }
+
+  public int built() {
+    return built;
+  }
+
+  public boolean isComplete() {
+    return built == generations();
+  }
+
+  public void limitLodDepth(int depth) {
+    builder.limitLodDepth(depth);
+  }
+
+  // builds the next generation, false when the tree is already complete
+  public boolean next() {
+    if (isComplete()) {
+      return false;
+    }
+    if (expansion != null) {
+      expansion.next();
+    }
+    step();
+    return true;
+  }
+
+  // files the built generations in the spatial index of the tree, on the thread that picks and while no step runs
+  public void updateIndex() {
+    tree.index.update(model, model.generationEnd(built - 1));
+  }
+
+  private void step() {
+    builder.buildGeneration(model, tree, built);
+    if (built + 1 == generations()) {
+      builder.finish(model, tree);
+    }
+    built++;
+  }
+}
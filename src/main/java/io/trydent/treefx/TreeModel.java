@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+
+// Scene graph free tree: branches are stored generation by generation in flat arrays,
+// so a parent always has a smaller index than its children.
+public class TreeModel {
+
+  public static final double ROOT_LENGTH = 150;
+  public static final double ROOT_TRANSLATE_Y = 30;
+  public static final double ROOT_GLOBAL_ANGLE = 90;
+
+  int size;
+  int[] parent;
+  double[] length;
+  double[] angle; //local angle relative to parent branch
+  double[] translateY; //place of beggining on parent branch
+  double[] globalAngle;
+  double[] globalH; //used for change color of top leaves
+  double[] startX; //where the branch starts in the still tree, in tree coordinates
+  double[] startY;
+  int[] depth;
+
+  final int[] generationOffsets;
+  int generations;
+
+  int[] crown = new int[16]; // This branches doesn't have child branches
+  int crownSize;
+
+  // leaves by crown position and flowers, sampled once the crown is complete
+  Color[] leafColor;
+  Color[] leafAutumnColor;
+  int[] flowerBranch;
+  Color[] flowerColor;
+
+  public TreeModel(int treeDepth) {
+    this(treeDepth, 16);
+  }
+
+  public TreeModel(int treeDepth, int capacity) {
+    parent = new int[capacity];
+    length = new double[capacity];
+    angle = new double[capacity];
+    translateY = new double[capacity];
+    globalAngle = new double[capacity];
+    globalH = new double[capacity];
+    startX = new double[capacity];
+    startY = new double[capacity];
+    depth = new int[capacity];
+    generationOffsets = new int[treeDepth + 1];
+  }
+
+  int addRoot() {
+    ensureCapacity(size + 1);
+    final int index = size++;
+    parent[index] = -1;
+    length[index] = ROOT_LENGTH;
+    angle[index] = 0;
+    translateY[index] = ROOT_TRANSLATE_Y;
+    globalAngle[index] = ROOT_GLOBAL_ANGLE;
+    globalH[index] = 0;
+    startX[index] = 0;
+    startY[index] = ROOT_TRANSLATE_Y;
+    depth[index] = 0;
+    return index;
+  }
+
+  // appends count rows to be filled with setBranch, possibly from several threads
+  int reserve(int count) {
+    ensureCapacity(size + count);
+    final int first = size;
+    size += count;
+    return first;
+  }
+
+  void setBranch(int index, int parentIndex, double branchLength, double localAngle, double transY, int branchDepth) {
+    parent[index] = parentIndex;
+    length[index] = branchLength;
+    angle[index] = localAngle;
+    translateY[index] = transY;
+    globalAngle[index] = globalAngle[parentIndex] + localAngle;
+    globalH[index] = transY * cos(PI / 2 - globalAngle[parentIndex] * PI / 180) + globalH[parentIndex];
+    final double parentAngle = globalAngle[parentIndex] - ROOT_GLOBAL_ANGLE;
+    startX[index] = startX[parentIndex] + rotatedX(0, transY, parentAngle);
+    startY[index] = startY[parentIndex] + rotatedY(0, transY, parentAngle);
+    depth[index] = branchDepth;
+  }
+
+  void addCrown(int index) {
+    if (crownSize == crown.length) {
+      crown = Arrays.copyOf(crown, crownSize * 2);
+    }
+    crown[crownSize++] = index;
+  }
+
+  void endGeneration() {
+    generationOffsets[++generations] = size;
+  }
+
+  void ensureCapacity(int capacity) {
+    if (capacity <= parent.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, parent.length * 2);
+    parent = Arrays.copyOf(parent, newCapacity);
+    length = Arrays.copyOf(length, newCapacity);
+    angle = Arrays.copyOf(angle, newCapacity);
+    translateY = Arrays.copyOf(translateY, newCapacity);
+    globalAngle = Arrays.copyOf(globalAngle, newCapacity);
+    globalH = Arrays.copyOf(globalH, newCapacity);
+    startX = Arrays.copyOf(startX, newCapacity);
+    startY = Arrays.copyOf(startY, newCapacity);
+    depth = Arrays.copyOf(depth, newCapacity);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // generations the model will have once complete
+  public int treeDepth() {
+    return generationOffsets.length - 1;
+  }
+
+  public int generations() {
+    return generations;
+  }
+
+  public int generationStart(int generation) {
+    return generationOffsets[generation];
+  }
+
+  public int generationEnd(int generation) {
+    return generationOffsets[generation + 1];
+  }
+
+  public int parent(int index) {
+    return parent[index];
+  }
+
+  public double length(int index) {
+    return length[index];
+  }
+
+  public double angle(int index) {
+    return angle[index];
+  }
+
+  public double translateY(int index) {
+    return translateY[index];
+  }
+
+  public double globalAngle(int index) {
+    return globalAngle[index];
+  }
+
+  public double globalH(int index) {
+    return globalH[index];
+  }
+
+  // the still tree: where a branch starts and ends in tree coordinates and its angle from the root branch in degrees,
+  // the frame wind, budgets and merged paths are worked out from
+  public double startX(int index) {
+    return startX[index];
+  }
+
+  public double startY(int index) {
+    return startY[index];
+  }
+
+  public double rootAngle(int index) {
+    return globalAngle[index] - ROOT_GLOBAL_ANGLE;
+  }
+
+  public double endX(int index) {
+    return startX[index] + rotatedX(0, length[index], rootAngle(index));
+  }
+
+  public double endY(int index) {
+    return startY[index] + rotatedY(0, length[index], rootAngle(index));
+  }
+
+  // the still pose of index in the frame of its ancestor frame, where the nodes of the ancestor sit
+  public double localX(int index, int frame) {
+    return rotatedX(startX[index] - startX[frame], startY[index] - startY[frame], -rootAngle(frame));
+  }
+
+  public double localY(int index, int frame) {
+    return rotatedY(startX[index] - startX[frame], startY[index] - startY[frame], -rootAngle(frame));
+  }
+
+  public double localAngle(int index, int frame) {
+    return globalAngle[index] - globalAngle[frame];
+  }
+
+  // the point (x, y) turned by degrees around the origin, as a Rotate turns it
+  static double rotatedX(double x, double y, double degrees) {
+    final double a = degrees * PI / 180;
+    return x * cos(a) - y * sin(a);
+  }
+
+  static double rotatedY(double x, double y, double degrees) {
+    final double a = degrees * PI / 180;
+    return x * sin(a) + y * cos(a);
+  }
+
+  public int depth(int index) {
+    return depth[index];
+  }
+
+  public int crownSize() {
+    return crownSize;
+  }
+
+  public int crown(int i) {
+    return crown[i];
+  }
+
+  public boolean isDecorated() {
+    return leafColor != null;
+  }
+
+  public Color leafColor(int crownIndex) {
+    return leafColor[crownIndex];
+  }
+
+  public Color leafAutumnColor(int crownIndex) {
+    return leafAutumnColor[crownIndex];
+  }
+
+  public int flowers() {
+    return flowerBranch == null ? 0 : flowerBranch.length;
+  }
+
+  public int flowerBranch(int i) {
+    return flowerBranch[i];
+  }
+
+  public Color flowerColor(int i) {
+    return flowerColor[i];
+  }
+}
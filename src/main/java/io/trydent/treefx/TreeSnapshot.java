@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.paint.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+
+// Binary file of a decorated TreeModel: branches, leaf colours and flower places, read through a memory mapping.
+// Big endian, columns one after another, values in single precision:
+//   int magic "TRFX", short version, short flags (0), int treeDepth, int size, int crownSize, int flowers,
+//   int[treeDepth + 1] generationOffsets, int[size] parent, float[size] length, angle, translateY,
+//   int[crownSize] crown, float[crownSize * 3] leafColor, leafAutumnColor (rgb),
+//   int[flowers] flowerBranch, float[flowers * 3] flowerColor (rgb)
+public final class TreeSnapshot {
+
+  public static final int MAGIC = 0x54524658; // TRFX
+  public static final short VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 2 + 2 + 4 * 4;
+
+  private TreeSnapshot() {
+  }
+
+  // java io.trydent.treefx.TreeSnapshot file [generations] [seed] [flowers]
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: TreeSnapshot file [generations] [seed] [flowers]");
+      System.exit(1);
+    }
+    final TreeGenerator generator = new TreeGenerator(null, args.length > 1 ? Integer.parseInt(args[1]) : 8,
+      args.length > 2 ? Long.parseLong(args[2]) : RandomUtil.randomSeed());
+    if (args.length > 3) {
+      generator.flowersNumber = Integer.parseInt(args[3]);
+    }
+    final TreeModel model = generator.generateDecoratedModel();
+    write(model, Paths.get(args[0]));
+    System.out.println(args[0] + ": " + model.size() + " branches, " + model.crownSize() + " leaves, " + model.flowers() + " flowers, seed " + generator.seed);
+  }
+
+  public static void write(TreeModel model, Path file) throws IOException {
+    if (!model.isDecorated()) {
+      throw new IllegalArgumentException("Model has no leaves and flowers yet");
+    }
+    final int size = model.size();
+    final int crownSize = model.crownSize();
+    final int flowers = model.flowers();
+    final long fileSize = fileSize(model.treeDepth(), size, crownSize, flowers);
+    if (fileSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Model is too big for a snapshot");
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+    buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+    buffer.putInt(model.treeDepth()).putInt(size).putInt(crownSize).putInt(flowers);
+    for (int g = 0; g <= model.treeDepth(); g++) {
+      buffer.putInt(g <= model.generations() ? model.generationOffsets[g] : size);
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.putInt(model.parent[i]);
+    }
+    putFloats(buffer, model.length, size);
+    putFloats(buffer, model.angle, size);
+    putFloats(buffer, model.translateY, size);
+    for (int i = 0; i < crownSize; i++) {
+      buffer.putInt(model.crown[i]);
+    }
+    putColors(buffer, model.leafColor, crownSize);
+    putColors(buffer, model.leafAutumnColor, crownSize);
+    for (int i = 0; i < flowers; i++) {
+      buffer.putInt(model.flowerBranch[i]);
+    }
+    putColors(buffer, model.flowerColor, flowers);
+    buffer.flip();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  public static TreeModel read(Path file) throws IOException {
+    final MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid once the channel is closed
+    }
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+      throw new IOException(file + " is not a tree snapshot");
+    }
+    final short version = buffer.getShort();
+    if (version != VERSION) {
+      throw new IOException(file + " has snapshot version " + version + ", expected " + VERSION);
+    }
+    buffer.getShort(); // flags
+    final int treeDepth = buffer.getInt();
+    final int size = buffer.getInt();
+    final int crownSize = buffer.getInt();
+    final int flowers = buffer.getInt();
+    if (treeDepth < 1 || size < 1 || crownSize < 0 || flowers < 0
+      || buffer.capacity() != fileSize(treeDepth, size, crownSize, flowers)) {
+      throw new IOException(file + " is truncated or corrupt");
+    }
+
+    final int[] offsets = getInts(buffer, treeDepth + 1);
+    final int[] parent = getInts(buffer, size);
+    final float[] length = getFloats(buffer, size);
+    final float[] angle = getFloats(buffer, size);
+    final float[] translateY = getFloats(buffer, size);
+
+    if (offsets[0] != 0 || offsets[treeDepth] != size) {
+      throw new IOException(file + " has corrupt generations");
+    }
+    final TreeModel model = new TreeModel(treeDepth, size);
+    model.addRoot();
+    model.endGeneration();
+    for (int g = 1; g < treeDepth; g++) {
+      if (offsets[g] != model.size() || offsets[g + 1] < offsets[g] || offsets[g + 1] > size) {
+        throw new IOException(file + " has corrupt generations");
+      }
+      final int first = model.reserve(offsets[g + 1] - offsets[g]);
+      for (int i = first; i < model.size(); i++) {
+        if (parent[i] < offsets[g - 1] || parent[i] >= offsets[g]) {
+          throw new IOException(file + " has a corrupt parent at branch " + i);
+        }
+        if (!(length[i] >= 0 && length[i] <= Float.MAX_VALUE) || !(Math.abs(angle[i]) <= 360)
+          || !(translateY[i] >= 0 && translateY[i] <= model.length(parent[i]))) {
+          throw new IOException(file + " has a corrupt branch " + i);
+        }
+        model.setBranch(i, parent[i], length[i], angle[i], translateY[i], g);
+      }
+      model.endGeneration();
+    }
+
+    final int[] crown = getInts(buffer, crownSize);
+    for (int branch : crown) {
+      model.addCrown(checkBranch(branch, model, file));
+    }
+    model.leafColor = getColors(buffer, crownSize, file);
+    model.leafAutumnColor = getColors(buffer, crownSize, file);
+    model.flowerBranch = getInts(buffer, flowers);
+    for (int branch : model.flowerBranch) {
+      checkBranch(branch, model, file);
+    }
+    model.flowerColor = getColors(buffer, flowers, file);
+    return model;
+  }
+
+  // in long, a corrupt header must not wrap around to the size of the file
+  private static long fileSize(long treeDepth, long size, long crownSize, long flowers) {
+    return HEADER_SIZE + 4 * (treeDepth + 1) + 16 * size + 4 * crownSize + 24 * crownSize + 4 * flowers + 12 * flowers;
+  }
+
+  private static int checkBranch(int branch, TreeModel model, Path file) throws IOException {
+    if (branch < 0 || branch >= model.size()) {
+      throw new IOException(file + " refers to missing branch " + branch);
+    }
+    return branch;
+  }
+
+  private static void putFloats(ByteBuffer buffer, double[] values, int count) {
+    for (int i = 0; i < count; i++) {
+      buffer.putFloat((float) values[i]);
+    }
+  }
+
+  private static void putColors(ByteBuffer buffer, Color[] colors, int count) {
+    for (int i = 0; i < count; i++) {
+      buffer.putFloat((float) colors[i].getRed()).putFloat((float) colors[i].getGreen()).putFloat((float) colors[i].getBlue());
+    }
+  }
+
+  private static int[] getInts(ByteBuffer buffer, int count) {
+    final int[] values = new int[count];
+    final IntBuffer ints = buffer.asIntBuffer();
+    ints.get(values);
+    buffer.position(buffer.position() + 4 * count);
+    return values;
+  }
+
+  private static float[] getFloats(ByteBuffer buffer, int count) {
+    final float[] values = new float[count];
+    final FloatBuffer floats = buffer.asFloatBuffer();
+    floats.get(values);
+    buffer.position(buffer.position() + 4 * count);
+    return values;
+  }
+
+  private static Color[] getColors(ByteBuffer buffer, int count, Path file) throws IOException {
+    final float[] rgb = getFloats(buffer, 3 * count);
+    for (float component : rgb) {
+      if (!(component >= 0 && component <= 1)) { //NaN too, Color.color lets it through
+        throw new IOException(file + " has a corrupt colour " + component);
+      }
+    }
+    final Color[] colors = new Color[count];
+    for (int i = 0; i < count; i++) {
+      colors[i] = Color.color(rgb[3 * i], rgb[3 * i + 1], rgb[3 * i + 2]);
+    }
+    return colors;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import java.util.Arrays;
+
+
+// Where every built branch is in tree coordinates with the wind as it is now: the start of the branch, its angle from
+// the root and its height, the same the scene graph gives, without walking it. The builder files branches as it makes
+// them, the wind only tells the new phase, and a branch is worked out again on the first read after the wind moved,
+// from its parent or subtree root, so a read costs the few branches down from the root at most.
+// A merged branch sits in the frame of its subtree root, turned by the wind of the merged generations around its end.
+// Filed and read on the FX thread, where the builder files each generation after its nodes are attached; a detached
+// tree is filed on the thread that builds it, before anything reads it.
+public class TreeTransforms {
+
+  private TreeModel model;
+  private int[] root = new int[0]; // subtree root of a merged branch, -1 for a branch of its own
+  private int[] branchesAtDepth = new int[0]; // branches of their own
+  private double[] mergedAmplitude = new double[0]; // by depth, as TreeWindAnimation turns merged branches
+
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] angle = new double[0]; // degrees
+  private int[] stamp = new int[0]; // wind the branch was worked out for
+  private double wind; // phase, 0 to 1
+  private int windStamp = 1;
+
+  // generation g from start on, roots holds the subtree root of each branch, the branch itself for one of its own
+  void addGeneration(TreeModel model, int g, int start, int[] roots) {
+    for (int k = 0; k < roots.length; k++) {
+      if (roots[k] == start + k) {
+        addBranch(model, start + k);
+      } else {
+        addMerged(model, start + k, roots[k]);
+      }
+    }
+    endGeneration(g);
+  }
+
+  // a branch with a node of its own
+  private void addBranch(TreeModel model, int branch) {
+    ensureCapacity(model, branch + 1);
+    root[branch] = -1;
+    stamp[branch] = 0;
+    branchesAtDepth[model.depth(branch)]++;
+  }
+
+  // a branch merged into the path of its subtree root, it keeps its still pose in the frame of that root
+  private void addMerged(TreeModel model, int branch, int subtreeRoot) {
+    ensureCapacity(model, branch + 1);
+    root[branch] = subtreeRoot;
+    stamp[branch] = 0;
+  }
+
+  // generation g is complete, merged branches of the next ones turn by its bend too if it has no branch of its own
+  private void endGeneration(int g) {
+    final double parent = g == 0 ? 0 : mergedAmplitude[g - 1];
+    mergedAmplitude[g] = branchesAtDepth[g] == 0 ? parent + TreeWindAnimation.amplitude(g) : 0;
+  }
+
+  // the wind moved, frac as TreeWindAnimation got it
+  void setWind(double frac) {
+    if (frac != wind) {
+      wind = frac;
+      windStamp++;
+    }
+  }
+
+  public double x(int branch) {
+    resolve(branch);
+    return x[branch];
+  }
+
+  public double y(int branch) {
+    resolve(branch);
+    return y[branch];
+  }
+
+  public double angle(int branch) {
+    resolve(branch);
+    return angle[branch];
+  }
+
+  // a point in the frame of branch, where its children, leaves and flowers sit, in tree coordinates
+  public double pointX(int branch, double localX, double localY) {
+    resolve(branch);
+    return x[branch] + TreeModel.rotatedX(localX, localY, angle[branch]);
+  }
+
+  public double pointY(int branch, double localX, double localY) {
+    resolve(branch);
+    return y[branch] + TreeModel.rotatedY(localX, localY, angle[branch]);
+  }
+
+  private void resolve(int branch) {
+    if (stamp[branch] == windStamp) {
+      return;
+    }
+    final int subtreeRoot = root[branch];
+    if (subtreeRoot >= 0) { //turned with its merged generation around the end of the subtree root
+      resolve(subtreeRoot);
+      final double bend = mergedAmplitude[model.depth(branch)] * wind;
+      final double pivotY = model.length(subtreeRoot);
+      final double originX = model.localX(branch, subtreeRoot);
+      final double originY = model.localY(branch, subtreeRoot) - pivotY;
+      final double localX = TreeModel.rotatedX(originX, originY, bend);
+      final double localY = pivotY + TreeModel.rotatedY(originX, originY, bend);
+      x[branch] = pointX(subtreeRoot, localX, localY);
+      y[branch] = pointY(subtreeRoot, localX, localY);
+      angle[branch] = angle[subtreeRoot] + bend + model.localAngle(branch, subtreeRoot);
+    } else {
+      final int parent = model.parent(branch);
+      final double bend = TreeWindAnimation.amplitude(model.depth(branch)) * wind;
+      if (parent < 0) {
+        x[branch] = 0;
+        y[branch] = model.translateY(branch);
+        angle[branch] = bend;
+      } else {
+        x[branch] = pointX(parent, 0, model.translateY(branch));
+        y[branch] = pointY(parent, 0, model.translateY(branch));
+        angle[branch] = angle[parent] + model.angle(branch) + bend;
+      }
+    }
+    stamp[branch] = windStamp;
+  }
+
+  private void ensureCapacity(TreeModel model, int capacity) {
+    this.model = model;
+    if (branchesAtDepth.length < model.treeDepth()) {
+      branchesAtDepth = Arrays.copyOf(branchesAtDepth, model.treeDepth());
+      mergedAmplitude = Arrays.copyOf(mergedAmplitude, model.treeDepth());
+    }
+    if (capacity <= root.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, root.length * 2);
+    root = Arrays.copyOf(root, newCapacity);
+    x = Arrays.copyOf(x, newCapacity);
+    y = Arrays.copyOf(y, newCapacity);
+    angle = Arrays.copyOf(angle, newCapacity);
+    stamp = Arrays.copyOf(stamp, newCapacity);
+  }
+}
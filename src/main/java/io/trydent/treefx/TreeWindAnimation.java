@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.animation.Animation;
+import javafx.animation.Interpolator;
+import javafx.animation.Transition;
+import javafx.scene.transform.Rotate;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+// One clock bends the whole tree: every pulse the shared phase is turned into all branch angles in one loop
+class TreeWindAnimation extends Transition {
+
+  private Rotate[] rotations = new Rotate[64];
+  private double[] amplitude = new double[64];
+  private int size;
+  public int stride = 1; // the tree moves every stride pulses
+  private int pulse;
+  private int[] addedBranches = new int[0]; // by generation
+  private int[] addedMerged = new int[0];
+  TreeTransforms transforms; // follows the bend, may be null
+
+  public TreeWindAnimation(Duration duration) {
+    setCycleCount(Animation.INDEFINITE);
+    setAutoReverse(true);
+    setInterpolator(Interpolator.LINEAR);
+    setCycleDuration(duration);
+  }
+
+  // takes the branches and merged rotations added to the lists since the last call, on the FX thread
+  // merged branches turn by the bend of every merged generation down to theirs
+  public void add(List<List<Branch>> generations, List<List<Rotate>> mergedWind) {
+    if (addedBranches.length < generations.size()) {
+      addedBranches = Arrays.copyOf(addedBranches, generations.size());
+      addedMerged = Arrays.copyOf(addedMerged, generations.size());
+    }
+    double mergedAmplitude = 0;
+    for (int d = 0; d < generations.size(); d++) {
+      final double depthAmplitude = amplitude(d);
+      final List<Branch> generation = generations.get(d);
+      for (int i = addedBranches[d]; i < generation.size(); i++) {
+        final Rotate rotation = new Rotate(0);
+        generation.get(i).getTransforms().add(rotation);
+        add(rotation, depthAmplitude);
+      }
+      addedBranches[d] = generation.size();
+
+      mergedAmplitude = generation.isEmpty() ? mergedAmplitude + depthAmplitude : 0;
+      if (mergedWind != null) {
+        final List<Rotate> merged = mergedWind.get(d);
+        for (int i = addedMerged[d]; i < merged.size(); i++) {
+          add(merged.get(i), mergedAmplitude);
+        }
+        addedMerged[d] = merged.size();
+      }
+    }
+  }
+
+  // degrees a branch at depth turns at the end of a cycle, deeper branches bend more
+  static double amplitude(int depth) {
+    return depth * 2;
+  }
+
+  private void add(Rotate rotation, double rotationAmplitude) {
+    if (size == rotations.length) {
+      rotations = Arrays.copyOf(rotations, size * 2);
+      amplitude = Arrays.copyOf(amplitude, size * 2);
+    }
+    rotations[size] = rotation;
+    amplitude[size] = rotationAmplitude;
+    size++;
+  }
+
+  @Override
+  protected void interpolate(double frac) {
+    if (stride > 1 && pulse++ % stride != 0) {
+      return;
+    }
+    for (int i = 0; i < size; i++) {
+      rotations[i].setAngle(amplitude[i] * frac);
+    }
+    if (transforms != null) {
+      transforms.setWind(frac);
+    }
+  }
+}
@@ -4,14 +4,19 @@
  */
 package io.trydent.treefx;
 
-import javafx.application.Platform;
 import javafx.scene.Group;
 import javafx.scene.Node;
 
 
 public class Util {
 
+  public static final BatchAttacher ATTACHER = new BatchAttacher(Integer.getInteger("treefx.attachBudget", BatchAttacher.DEFAULT_BUDGET));
+
   public static void addChildToParent(final Group parent, final Node child) {
-    Platform.runLater(() -> parent.getChildren().add(child));
+    ATTACHER.add(parent, child);
+  }
+
+  public static void runWhenAttached(final Runnable callback) {
+    ATTACHER.whenAttached(callback);
   }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class RandomUtilTest {
+
+  private static final int SAMPLES = 10_000;
+
+  @Test
+  public void sameSeedGivesTheSameSequence() {
+    final RandomUtil a = new RandomUtil(42);
+    final RandomUtil b = new RandomUtil(42);
+    for (int i = 0; i < SAMPLES; i++) {
+      assertEquals(a.random(), b.random(), 0);
+      assertEquals(a.getRandom(10), b.getRandom(10), 0);
+      assertEquals(a.getGaussianRandom(35, 10), b.getGaussianRandom(35, 10), 0);
+      assertEquals(a.getGaussianRandom(0, 100, 90, 10), b.getGaussianRandom(0, 100, 90, 10), 0);
+      assertEquals(a.getRandomIndex(0, 99), b.getRandomIndex(0, 99));
+      assertEquals(a.nextSeed(), b.nextSeed());
+    }
+  }
+
+  @Test
+  public void splitDoesNotDependOnLaterParentDraws() {
+    final RandomUtil parent = new RandomUtil(7);
+    final RandomUtil child = parent.split();
+    for (int i = 0; i < SAMPLES; i++) {
+      parent.random();
+    }
+    final RandomUtil same = new RandomUtil(7).split();
+    for (int i = 0; i < SAMPLES; i++) {
+      assertEquals(same.random(), child.random(), 0);
+    }
+  }
+
+  @Test
+  public void splitsAreNotTheParentSequence() {
+    final RandomUtil parent = new RandomUtil(7);
+    final RandomUtil first = parent.split();
+    final RandomUtil second = parent.split();
+    int equal = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      final double p = parent.random();
+      final double f = first.random();
+      final double s = second.random();
+      equal += (p == f ? 1 : 0) + (p == s ? 1 : 0) + (f == s ? 1 : 0);
+    }
+    assertEquals(0, equal);
+    assertNotEquals(new RandomUtil(7).split().nextSeed(), new RandomUtil(8).split().nextSeed());
+  }
+
+  @Test
+  public void truncatedGaussianStaysInBounds() {
+    assertInBounds(0, 1, 0.5, 10);
+    assertInBounds(0, 150, 15, 15); // side branch offsets on the root
+    assertInBounds(-1, 1, 0, 0.01);
+  }
+
+  @Test
+  public void truncatedGaussianStaysInBoundsInTheFarTail() {
+    // the normal cdf underflows to 0 at both bounds, the exponential fallback samples these
+    assertInBounds(40, 45, 0, 1);
+    assertInBounds(-45, -40, 0, 1);
+    assertInBounds(50, Double.POSITIVE_INFINITY, 0, 1);
+    assertInBounds(Double.NEGATIVE_INFINITY, -50, 0, 1);
+    assertInBounds(1e6, 1e6 + 1e-3, 0, 1);
+  }
+
+  @Test
+  public void truncatedGaussianWithoutDeviationIsTheClampedMean() {
+    final RandomUtil random = new RandomUtil(3);
+    assertEquals(5, random.getGaussianRandom(0, 10, 5, 0), 0);
+    assertEquals(0, random.getGaussianRandom(0, 10, -5, 0), 0);
+    assertEquals(10, random.getGaussianRandom(0, 10, 15, 0), 0);
+    assertEquals(4, random.getGaussianRandom(4, 4, 4, 0), 0);
+  }
+
+  private static void assertInBounds(double from, double to, double mean, double deviation) {
+    final RandomUtil random = new RandomUtil(11);
+    for (int i = 0; i < SAMPLES; i++) {
+      final double x = random.getGaussianRandom(from, to, mean, deviation);
+      assertTrue(x + " out of [" + from + ", " + to + "]", x >= from && x <= to);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class TreeGeneratorTest {
+
+  private static final long[] SEEDS = {1, 42, -7, 0x5DEECE66DL};
+
+  @Test
+  public void forkJoinExpandsTheSameModelAsOneThread() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int depth : new int[]{2, 6, 9, 11}) {
+        for (long seed : SEEDS) {
+          final TreeModel sequential = new TreeGenerator(null, depth, seed).generateModel();
+          final TreeGenerator parallel = new TreeGenerator(null, depth, seed);
+          parallel.pool = pool;
+          assertSameModel("depth " + depth + " seed " + seed, sequential, parallel.generateModel());
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void deepestTreeSplitsTheGenerationTask() {
+    final TreeModel model = new TreeGenerator(null, 11, 42).generateModel();
+    int parents = 0; //of the widest generation that has children
+    for (int g = 0; g + 1 < model.generations(); g++) {
+      parents = Math.max(parents, model.generationEnd(g) - model.generationStart(g));
+    }
+    assertTrue(parents + " parents", parents > TreeGenerator.PARALLEL_THRESHOLD);
+  }
+
+  @Test
+  public void budgetOfAFullTreeGrowsThatTree() {
+    for (int depth : new int[]{6, 9, 11}) {
+      for (long seed : SEEDS) {
+        final TreeModel full = new TreeGenerator(null, depth, seed).generateDecoratedModel();
+        final TreeGenerator budgeted = new TreeGenerator(null, depth, seed);
+        budgeted.branchBudget = full.size();
+        final TreeModel model = budgeted.generateDecoratedModel();
+        final String message = "depth " + depth + " seed " + seed;
+        assertSameModel(message, full, model);
+        for (int i = 0; i < full.crownSize(); i++) {
+          assertEquals(message + " leaf " + i, full.leafColor(i), model.leafColor(i));
+          assertEquals(message + " leaf " + i, full.leafAutumnColor(i), model.leafAutumnColor(i));
+        }
+        assertEquals(message, full.flowers(), model.flowers());
+        for (int i = 0; i < full.flowers(); i++) {
+          assertEquals(message + " flower " + i, full.flowerBranch(i), model.flowerBranch(i));
+          assertEquals(message + " flower " + i, full.flowerColor(i), model.flowerColor(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void memoryBudgetBoundsTheBranches() {
+    final TreeGenerator generator = new TreeGenerator(null, 30, 11);
+    generator.memoryBudget = 1000 * TreeGenerator.BRANCH_BYTES;
+    final TreeModel model = generator.generateModel();
+    assertTrue(model.size() + " branches", model.size() <= 1000 && model.size() > 1000 - 3);
+  }
+
+  static void assertSameModel(String message, TreeModel expected, TreeModel actual) {
+    assertEquals(message, expected.treeDepth(), actual.treeDepth());
+    assertEquals(message, expected.generations(), actual.generations());
+    assertEquals(message, expected.size(), actual.size());
+    for (int g = 0; g < expected.generations(); g++) {
+      assertEquals(message + " generation " + g, expected.generationEnd(g), actual.generationEnd(g));
+    }
+    for (int i = 0; i < expected.size(); i++) {
+      final String branch = message + " branch " + i;
+      assertEquals(branch, expected.parent(i), actual.parent(i));
+      assertEquals(branch, expected.depth(i), actual.depth(i));
+      assertEquals(branch, expected.length(i), actual.length(i), 0);
+      assertEquals(branch, expected.angle(i), actual.angle(i), 0);
+      assertEquals(branch, expected.translateY(i), actual.translateY(i), 0);
+      assertEquals(branch, expected.globalAngle(i), actual.globalAngle(i), 0);
+      assertEquals(branch, expected.globalH(i), actual.globalH(i), 0);
+    }
+    assertEquals(message, expected.crownSize(), actual.crownSize());
+    for (int i = 0; i < expected.crownSize(); i++) {
+      assertEquals(message + " crown " + i, expected.crown(i), actual.crown(i));
+    }
+  }
+}
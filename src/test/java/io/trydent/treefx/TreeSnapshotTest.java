@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ */
+package io.trydent.treefx;
+
+import javafx.scene.paint.Color;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+
+public class TreeSnapshotTest {
+
+  private static final int HEADER_SIZE = 24;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void readsWhatWasWritten() throws IOException {
+    final TreeModel model = new TreeGenerator(null, 7, 42).generateDecoratedModel();
+    final Path file = folder.newFile().toPath();
+    TreeSnapshot.write(model, file);
+    final TreeModel read = TreeSnapshot.read(file);
+
+    assertEquals(model.treeDepth(), read.treeDepth());
+    assertEquals(model.generations(), read.generations());
+    assertEquals(model.size(), read.size());
+    for (int g = 0; g < model.generations(); g++) {
+      assertEquals(model.generationEnd(g), read.generationEnd(g));
+    }
+    for (int i = 0; i < model.size(); i++) {
+      assertEquals(model.parent(i), read.parent(i));
+      assertEquals(model.depth(i), read.depth(i));
+      assertEquals((float) model.length(i), (float) read.length(i), 0);
+      assertEquals((float) model.angle(i), (float) read.angle(i), 0);
+      assertEquals((float) model.translateY(i), (float) read.translateY(i), 0);
+    }
+    assertEquals(model.crownSize(), read.crownSize());
+    for (int i = 0; i < model.crownSize(); i++) {
+      assertEquals(model.crown(i), read.crown(i));
+      assertColor(model.leafColor(i), read.leafColor(i));
+      assertColor(model.leafAutumnColor(i), read.leafAutumnColor(i));
+    }
+    assertEquals(model.flowers(), read.flowers());
+    for (int i = 0; i < model.flowers(); i++) {
+      assertEquals(model.flowerBranch(i), read.flowerBranch(i));
+      assertColor(model.flowerColor(i), read.flowerColor(i));
+    }
+
+    final Path again = folder.newFile().toPath();
+    TreeSnapshot.write(read, again);
+    assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(again));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsSizeWrappingAroundToTheFileSize() throws IOException {
+    final Path file = snapshot();
+    try (RandomAccessFile data = new RandomAccessFile(file.toFile(), "rw")) {
+      data.seek(12);
+      final int size = data.readInt();
+      data.seek(12);
+      data.writeInt(size + (1 << 28)); // 16 bytes a branch, the same file size in int
+    }
+    TreeSnapshot.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsBranchesAfterTheLastGeneration() throws IOException {
+    final Path file = snapshot();
+    try (RandomAccessFile data = new RandomAccessFile(file.toFile(), "rw")) {
+      data.seek(8);
+      final int treeDepth = data.readInt();
+      final long lastOffset = HEADER_SIZE + 4L * treeDepth;
+      data.seek(lastOffset);
+      final int end = data.readInt();
+      data.seek(lastOffset);
+      data.writeInt(end - 1);
+    }
+    TreeSnapshot.read(file);
+  }
+
+  @Test
+  public void readsTreesWithDownwardBranchesCutToNothing() throws IOException {
+    final TreeModel model = new TreeGenerator(null, 8, 194).generateDecoratedModel(); // its ratio draw is below 0
+    final Path file = folder.newFile().toPath();
+    TreeSnapshot.write(model, file);
+    assertEquals(model.size(), TreeSnapshot.read(file).size());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsNaNLength() throws IOException {
+    TreeSnapshot.read(patchBranch(0, 1, Float.NaN));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsNegativeLength() throws IOException {
+    TreeSnapshot.read(patchBranch(0, 1, -1));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsInfiniteAngle() throws IOException {
+    TreeSnapshot.read(patchBranch(1, 1, Float.POSITIVE_INFINITY));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsBranchStartingPastItsParent() throws IOException {
+    TreeSnapshot.read(patchBranch(2, 1, 1000));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsColourOutOfRange() throws IOException {
+    TreeSnapshot.read(patchLeafRed(2));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsNaNColour() throws IOException {
+    TreeSnapshot.read(patchLeafRed(Float.NaN));
+  }
+
+  // column 0 length, 1 angle, 2 translateY
+  private Path patchBranch(int column, int branch, float value) throws IOException {
+    final Path file = snapshot();
+    try (RandomAccessFile data = new RandomAccessFile(file.toFile(), "rw")) {
+      data.seek(8);
+      final int treeDepth = data.readInt();
+      final int size = data.readInt();
+      data.seek(HEADER_SIZE + 4L * (treeDepth + 1) + 4L * size * (1 + column) + 4L * branch);
+      data.writeFloat(value);
+    }
+    return file;
+  }
+
+  private Path patchLeafRed(float value) throws IOException {
+    final Path file = snapshot();
+    try (RandomAccessFile data = new RandomAccessFile(file.toFile(), "rw")) {
+      data.seek(8);
+      final int treeDepth = data.readInt();
+      final int size = data.readInt();
+      final int crownSize = data.readInt();
+      data.seek(HEADER_SIZE + 4L * (treeDepth + 1) + 16L * size + 4L * crownSize);
+      data.writeFloat(value);
+    }
+    return file;
+  }
+
+  private Path snapshot() throws IOException {
+    final Path file = folder.newFile().toPath();
+    TreeSnapshot.write(new TreeGenerator(null, 6, 7).generateDecoratedModel(), file);
+    return file;
+  }
+
+  private static void assertColor(Color expected, Color actual) {
+    assertEquals((float) expected.getRed(), (float) actual.getRed(), 0);
+    assertEquals((float) expected.getGreen(), (float) actual.getGreen(), 0);
+    assertEquals((float) expected.getBlue(), (float) actual.getBlue(), 0);
+  }
+}